@@ -25,6 +25,7 @@ import org.apache.logging.log4j.Logger;
 import org.jspecify.annotations.Nullable;
 
 import java.net.URL;
+import java.util.Map;
 import java.util.Objects;
 import java.util.ResourceBundle;
 
@@ -42,6 +43,11 @@ public abstract class FxApplicationFxml<A extends FxApplicationFxml<A, C>, C ext
      */
     private static final Logger LOG = LogManager.getLogger(FxApplicationFxml.class);
 
+    /**
+     * Flag indicating whether the FXML is loaded through the {@link FxmlCache}.
+     */
+    private boolean fxmlCacheEnabled = false;
+
     /**
      * Constructor.
      * <p>
@@ -58,17 +64,74 @@ public abstract class FxApplicationFxml<A extends FxApplicationFxml<A, C>, C ext
         super(i18n, license);
     }
 
+    /**
+     * Check whether the FXML is loaded through the {@link FxmlCache}.
+     *
+     * @return true, if the FXML cache is used
+     */
+    public boolean isFxmlCacheEnabled() {
+        return fxmlCacheEnabled;
+    }
+
+    /**
+     * Enable or disable loading the FXML through the {@link FxmlCache}.
+     * <p>
+     * When enabled, the FXML source is read and the classes it imports are loaded during {@link #init()}, off the
+     * JavaFX Application Thread, and the loader uses a shared builder factory. This must be set before the
+     * application is initialized, i.e., in the constructor.
+     *
+     * @param fxmlCacheEnabled true, to use the FXML cache
+     */
+    protected void setFxmlCacheEnabled(boolean fxmlCacheEnabled) {
+        this.fxmlCacheEnabled = fxmlCacheEnabled;
+    }
+
+    /**
+     * Get the URL of the FXML defining the user interface.
+     *
+     * @return the FXML URL
+     */
+    protected URL getFxmlUrl() {
+        return (URL) i18n.getObject("fx.application.fxml.url");
+    }
+
+    /**
+     * Get the resource bundle used to load the FXML.
+     *
+     * @return the FXML resource bundle
+     */
+    protected ResourceBundle getFxmlBundle() {
+        return (ResourceBundle) i18n.getObject("fx.application.fxml.bundle");
+    }
+
+    @Override
+    protected Map<String, Runnable> initTasks() {
+        Map<String, Runnable> tasks = super.initTasks();
+        if (fxmlCacheEnabled) {
+            tasks.put("fxml", () -> FxmlCache.getInstance().prefetch(getFxmlUrl()));
+        }
+        return tasks;
+    }
+
     /**
      * Initialize User Interface. The layout is defined in FXML.
      */
     @Override
     protected Parent createParentAndInitController() throws Exception {
         // create a loader and load FXML
-        URL fxml = (URL) i18n.getObject("fx.application.fxml.url");
-        ResourceBundle fxmlBundle = (ResourceBundle) i18n.getObject("fx.application.fxml.bundle");
-        FXMLLoader loader = new FXMLLoader(fxml, fxmlBundle);
+        URL fxml = getFxmlUrl();
+        ResourceBundle fxmlBundle = getFxmlBundle();
 
-        Parent root = loader.load();
+        Parent root;
+        FXMLLoader loader;
+        if (fxmlCacheEnabled) {
+            FxmlCache cache = FxmlCache.getInstance();
+            loader = cache.createLoader(fxml, fxmlBundle);
+            root = cache.load(loader);
+        } else {
+            loader = new FXMLLoader(fxml, fxmlBundle);
+            root = loader.load();
+        }
 
         // set controller
         LOG.debug("setting FXML controller");
@@ -0,0 +1,163 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application.fxml;
+
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.JavaFXBuilderFactory;
+import javafx.util.BuilderFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A cache for FXML resources.
+ * <p>
+ * The FXML source is read once per URL and kept in memory, and the classes imported by the FXML are loaded when the
+ * source is first read, which can be done off the JavaFX Application Thread using {@link #prefetch(URL)}. Loaders
+ * created by this cache share a single {@link JavaFXBuilderFactory}, so that the builder lookups done by reflection
+ * are performed only once per class.
+ * <p>
+ * The FXML is still parsed each time it is loaded because {@link FXMLLoader} creates a new node graph on each load.
+ */
+public final class FxmlCache {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(FxmlCache.class);
+
+    /**
+     * Pattern to extract single class imports from FXML.
+     */
+    private static final Pattern PATTERN_IMPORT = Pattern.compile("<\\?import\\s+([\\w.$]+)\\s*\\?>");
+
+    /**
+     * The shared instance.
+     */
+    private static final FxmlCache INSTANCE = new FxmlCache();
+
+    private final Map<String, byte[]> sources = new ConcurrentHashMap<>();
+    private final BuilderFactory builderFactory = new JavaFXBuilderFactory();
+
+    private FxmlCache() {
+    }
+
+    /**
+     * Get the shared instance.
+     *
+     * @return the shared FXML cache
+     */
+    public static FxmlCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Read and cache the FXML source and load the imported classes.
+     * <p>
+     * This method can be called from any thread.
+     *
+     * @param fxml the URL of the FXML
+     * @throws UncheckedIOException if the FXML could not be read
+     */
+    public void prefetch(URL fxml) {
+        source(fxml);
+    }
+
+    private byte[] source(URL fxml) {
+        // use the external form as key because URL.equals() may resolve host names
+        return sources.computeIfAbsent(fxml.toExternalForm(), key -> {
+            try (InputStream in = fxml.openStream()) {
+                byte[] data = in.readAllBytes();
+                loadImportedClasses(fxml, data);
+                return data;
+            } catch (IOException e) {
+                throw new UncheckedIOException("could not read FXML: " + fxml, e);
+            }
+        });
+    }
+
+    private static void loadImportedClasses(URL fxml, byte[] data) {
+        ClassLoader classLoader = FXMLLoader.getDefaultClassLoader();
+        Matcher matcher = PATTERN_IMPORT.matcher(new String(data, StandardCharsets.UTF_8));
+        int n = 0;
+        while (matcher.find()) {
+            String className = matcher.group(1);
+            try {
+                Class.forName(className, false, classLoader);
+                n++;
+            } catch (ClassNotFoundException | LinkageError e) {
+                // the class may be nested or be resolved differently by FXMLLoader; ignore
+                LOG.trace("could not preload class {} imported by {}", className, fxml, e);
+            }
+        }
+        LOG.debug("preloaded {} classes imported by {}", n, fxml);
+    }
+
+    /**
+     * Create a loader that uses the shared builder factory.
+     *
+     * @param fxml      the URL of the FXML
+     * @param resources the resource bundle
+     * @return the loader
+     */
+    public FXMLLoader createLoader(URL fxml, ResourceBundle resources) {
+        return new FXMLLoader(fxml, resources, builderFactory);
+    }
+
+    /**
+     * Load the FXML from the cached source.
+     * <p>
+     * The loader's location must be set, it is used to determine the source and to resolve relative references.
+     * Because the shared builder factory is not thread-safe, loads performed through this method are serialized.
+     *
+     * @param <T>    the type of the root element
+     * @param loader the loader, created by {@link #createLoader(URL, ResourceBundle)}
+     * @return the root of the loaded node graph
+     * @throws IOException if an error occurs while loading
+     */
+    public <T> T load(FXMLLoader loader) throws IOException {
+        URL fxml = loader.getLocation();
+        if (fxml == null) {
+            throw new IllegalArgumentException("loader location is not set");
+        }
+
+        try {
+            byte[] data = source(fxml);
+            synchronized (builderFactory) {
+                return loader.load(new ByteArrayInputStream(data));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Remove all cached sources.
+     */
+    public void clear() {
+        sources.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package com.dua3.fx.application.fxml;
+
+import javafx.fxml.FXMLLoader;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.StackPane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ListResourceBundle;
+import java.util.ResourceBundle;
+
+/**
+ * Test class for FxmlCache.
+ */
+class FxmlCacheTest {
+
+    private static final String STACK_PANE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <?import javafx.scene.layout.StackPane?>
+            <StackPane xmlns:fx="http://javafx.com/fxml"/>
+            """;
+
+    private static final String PANE = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <?import javafx.scene.layout.Pane?>
+            <Pane xmlns:fx="http://javafx.com/fxml"/>
+            """;
+
+    private static final ResourceBundle RESOURCES = new ListResourceBundle() {
+        @Override
+        protected Object[][] getContents() {
+            return new Object[0][];
+        }
+    };
+
+    private final FxmlCache cache = FxmlCache.getInstance();
+
+    @AfterEach
+    void tearDown() {
+        cache.clear();
+    }
+
+    /**
+     * Test that the source is read once and each load creates a new node graph.
+     */
+    @Test
+    void testLoad(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("test.fxml");
+        Files.writeString(file, STACK_PANE);
+        URL url = file.toUri().toURL();
+
+        cache.prefetch(url);
+        Object first = cache.load(cache.createLoader(url, RESOURCES));
+        Object second = cache.load(cache.createLoader(url, RESOURCES));
+        Assertions.assertTrue(first instanceof StackPane, "FXML should be loaded");
+        Assertions.assertNotSame(first, second, "Each load should create a new node graph");
+
+        // changes to the file are not seen until the cache is cleared
+        Files.writeString(file, PANE);
+        Assertions.assertTrue(cache.load(cache.createLoader(url, RESOURCES)) instanceof StackPane, "Cached source should be used");
+
+        cache.clear();
+        Object reloaded = cache.load(cache.createLoader(url, RESOURCES));
+        Assertions.assertFalse(reloaded instanceof StackPane, "Source should be read again after clearing the cache");
+        Assertions.assertTrue(reloaded instanceof Pane, "Changed FXML should be loaded");
+    }
+
+    /**
+     * Test error handling for missing sources and loaders without location.
+     */
+    @Test
+    void testErrors(@TempDir Path dir) throws Exception {
+        URL missing = dir.resolve("missing.fxml").toUri().toURL();
+        Assertions.assertThrows(UncheckedIOException.class, () -> cache.prefetch(missing), "Prefetching a missing file should fail");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> cache.load(new FXMLLoader()), "Loader without location should be rejected");
+    }
+}
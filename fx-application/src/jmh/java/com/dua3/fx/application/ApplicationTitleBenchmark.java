@@ -0,0 +1,67 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for updating the application title while the dirty flag of the current document changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ApplicationTitleBenchmark {
+
+    private BenchmarkFixtures.BenchmarkApplication app;
+    private BenchmarkFixtures.BenchmarkDocument document;
+    private boolean dirty;
+
+    /**
+     * Set up the application with a current document.
+     */
+    @Setup
+    public void setup() {
+        app = BenchmarkFixtures.createApplication();
+        document = new BenchmarkFixtures.BenchmarkDocument(URI.create("file:///home/user/My%20Documents/report%202024.txt"), new byte[0]);
+        app.getController().setCurrentDocument(document);
+    }
+
+    /**
+     * Toggle the dirty flag and update the title, i.e., the work done per keystroke without coalescing.
+     */
+    @Benchmark
+    public void toggleDirtyAndUpdateTitle() {
+        dirty = !dirty;
+        document.dirtyProperty().set(dirty);
+        app.updateApplicationTitle();
+    }
+
+    /**
+     * Update the title without a change, i.e., the cost of a redundant update.
+     */
+    @Benchmark
+    public void updateTitleUnchanged() {
+        app.updateApplicationTitle();
+    }
+}
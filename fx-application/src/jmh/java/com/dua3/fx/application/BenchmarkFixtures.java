@@ -0,0 +1,140 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import com.dua3.utility.i18n.I18N;
+import javafx.scene.Parent;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.stage.FileChooser;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+
+/**
+ * Headless application, controller, and document implementations used by the benchmarks.
+ * <p>
+ * None of the classes require the JavaFX toolkit to be started. Dialogs are answered without user interaction.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Create an application instance with a controller.
+     *
+     * @return the application
+     */
+    static BenchmarkApplication createApplication() {
+        BenchmarkApplication app = new BenchmarkApplication();
+        BenchmarkController controller = new BenchmarkController();
+        app.setController(controller);
+        controller.setApp(app);
+        return app;
+    }
+
+    /**
+     * A document holding its content in memory.
+     */
+    static final class BenchmarkDocument extends FxDocument {
+        private byte[] content;
+
+        BenchmarkDocument(URI location, byte[] content) {
+            super(location);
+            this.content = content;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        void setContent(byte[] content) {
+            this.content = content;
+            dirtyProperty().set(true);
+        }
+
+        @Override
+        protected void writeContent(OutputStream out) throws IOException {
+            out.write(content);
+        }
+
+        @Override
+        public void saveAs(URI uri) throws IOException {
+            super.saveAs(uri);
+            dirtyProperty().set(false);
+        }
+    }
+
+    /**
+     * An application that is never started.
+     */
+    static final class BenchmarkApplication extends FxApplication<BenchmarkApplication, BenchmarkController> {
+        BenchmarkApplication() {
+            super(I18N.getInstance(), null);
+        }
+
+        @Override
+        protected Parent createParentAndInitController() {
+            throw new UnsupportedOperationException("the benchmark application is not started");
+        }
+
+        @Override
+        public String getVersion() {
+            return "benchmark";
+        }
+
+        @Override
+        public void showPreferencesDialog() {
+            // nothing to do
+        }
+    }
+
+    /**
+     * A multi-document controller that answers all confirmations with "yes" / "don't save".
+     */
+    static final class BenchmarkController extends FxMultiDocumentController<BenchmarkApplication, BenchmarkController, BenchmarkDocument> {
+        @Override
+        protected FileChooser.ExtensionFilter selectedOpenFilter() {
+            return new FileChooser.ExtensionFilter("All Files", "*.*");
+        }
+
+        @Override
+        protected FileChooser.ExtensionFilter selectedSaveFilter() {
+            return new FileChooser.ExtensionFilter("All Files", "*.*");
+        }
+
+        @Override
+        protected BenchmarkDocument loadDocument(DocumentInput input) throws IOException {
+            ByteBuffer buffer = input.buffer();
+            byte[] content = new byte[buffer.remaining()];
+            buffer.get(content);
+            return new BenchmarkDocument(input.getUri(), content);
+        }
+
+        @Override
+        protected ButtonType showConfirmationDialog(String header, String text, @Nullable ButtonType defaultButton, ButtonType... buttons) {
+            for (ButtonType button : buttons) {
+                if (button == ButtonType.YES || button.getButtonData() == ButtonBar.ButtonData.NO) {
+                    return button;
+                }
+            }
+            return ButtonType.CANCEL;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for checking the dirty state of many open documents, as done before closing the application.
+ * <p>
+ * The confirmation dialog is answered without user interaction, so the benchmark measures the framework overhead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DirtyStateBenchmark {
+
+    /**
+     * The number of open documents.
+     */
+    @Param({"10", "100", "1000"})
+    public int documentCount;
+
+    /**
+     * Every n-th document is dirty.
+     */
+    @Param({"1", "10"})
+    public int dirtyInterval;
+
+    private BenchmarkFixtures.BenchmarkController controller;
+
+    /**
+     * Open the documents.
+     */
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.BenchmarkApplication app = BenchmarkFixtures.createApplication();
+        controller = app.getController();
+        controller.setMemoryBudget(Long.MAX_VALUE);
+        for (int i = 0; i < documentCount; i++) {
+            BenchmarkFixtures.BenchmarkDocument document = new BenchmarkFixtures.BenchmarkDocument(
+                    URI.create("file:///benchmark/document" + i + ".txt"), new byte[0]);
+            controller.addDocument(document);
+            document.dirtyProperty().set(i % dirtyInterval == 0);
+        }
+    }
+
+    /**
+     * Collect the dirty documents.
+     *
+     * @return the dirty documents
+     */
+    @Benchmark
+    public List<BenchmarkFixtures.BenchmarkDocument> dirtyDocuments() {
+        return controller.dirtyDocuments();
+    }
+
+    /**
+     * Check the dirty state.
+     *
+     * @return the result of handleDirtyState()
+     */
+    @Benchmark
+    public boolean handleDirtyState() {
+        return controller.handleDirtyState();
+    }
+}
@@ -0,0 +1,113 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks for opening and saving documents through the controller.
+ * <p>
+ * Documents are read and written in a temporary directory. Saving includes the atomic replacement of the target
+ * file, i.e., writing a temporary file, syncing it to disk, and renaming it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DocumentIoBenchmark {
+
+    /**
+     * The document size in bytes.
+     */
+    @Param({"4096", "1048576"})
+    public int size;
+
+    private Path dir;
+    private URI uri;
+    private BenchmarkFixtures.BenchmarkController controller;
+    private BenchmarkFixtures.BenchmarkDocument document;
+
+    /**
+     * Create the document file.
+     *
+     * @throws IOException on error
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("fx-benchmark");
+        Path file = dir.resolve("document.bin");
+        byte[] content = new byte[size];
+        new Random(0).nextBytes(content);
+        Files.write(file, content);
+        uri = file.toUri();
+
+        controller = BenchmarkFixtures.createApplication().getController();
+        document = controller.loadDocument(uri);
+        controller.setCurrentDocument(document);
+    }
+
+    /**
+     * Delete the temporary files.
+     *
+     * @throws IOException on error
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    /**
+     * Load the document.
+     *
+     * @return the loaded document
+     * @throws IOException on error
+     */
+    @Benchmark
+    public BenchmarkFixtures.BenchmarkDocument load() throws IOException {
+        return controller.loadDocument(uri);
+    }
+
+    /**
+     * Save the current document.
+     *
+     * @return the result of save()
+     */
+    @Benchmark
+    public boolean save() {
+        document.dirtyProperty().set(true);
+        return controller.save();
+    }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for converting document locations to text.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DocumentNameBenchmark {
+
+    /**
+     * The document location.
+     */
+    @Param({
+            "file:///home/user/document.txt",
+            "file:///home/user/My%20Documents/Gr%C3%BC%C3%9Fe%20und%20%C3%84nderungen/report%202024.txt"
+    })
+    public String location;
+
+    private URI uri;
+    private FxDocument document;
+
+    /**
+     * Create the document.
+     */
+    @Setup
+    public void setup() {
+        uri = URI.create(location);
+        document = new BenchmarkFixtures.BenchmarkDocument(uri, new byte[0]);
+    }
+
+    /**
+     * Get the document name.
+     *
+     * @return the name
+     */
+    @Benchmark
+    public String getName() {
+        return document.getName();
+    }
+
+    /**
+     * Decode the location.
+     *
+     * @return the text
+     */
+    @Benchmark
+    public String asText() {
+        return FxApplication.asText(uri);
+    }
+
+    /**
+     * Get the cached location text.
+     *
+     * @return the text
+     */
+    @Benchmark
+    public String getLocationText() {
+        return document.getLocationText();
+    }
+}
@@ -0,0 +1,84 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.prefs.BackingStoreException;
+
+/**
+ * Benchmarks for reading and writing application preferences.
+ * <p>
+ * The preferences are stored in the user preferences node of the benchmark application class, which is removed
+ * after the benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PreferencesBenchmark {
+
+    private static final String KEY = "benchmark.key";
+
+    private BenchmarkFixtures.BenchmarkApplication app;
+    private int counter;
+
+    /**
+     * Create the application and initialize its preferences.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        app = BenchmarkFixtures.createApplication();
+        app.getPreferences().put(KEY, "value");
+    }
+
+    /**
+     * Remove the preferences written by the benchmark.
+     *
+     * @throws BackingStoreException if the preferences cannot be removed
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws BackingStoreException {
+        app.getPreferences().removeNode();
+    }
+
+    /**
+     * Read a preference.
+     *
+     * @return the value
+     */
+    @Benchmark
+    public String getPreference() {
+        return app.getPreference(KEY, "");
+    }
+
+    /**
+     * Write a preference.
+     *
+     * @return the result of setPreferenceOptional()
+     */
+    @Benchmark
+    public boolean setPreferenceOptional() {
+        return app.setPreferenceOptional(KEY, Integer.toString(counter++ & 0xff));
+    }
+}
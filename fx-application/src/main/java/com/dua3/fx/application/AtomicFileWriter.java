@@ -0,0 +1,144 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.security.SecureRandom;
+import java.util.Objects;
+
+/**
+ * Helper class for crash-safe writing of files.
+ * <p>
+ * Data is written to a temporary file in the same directory as the target file. The temporary file is synced to
+ * disk and then moved to the target location, replacing an existing file. If the file system supports it, the move
+ * is atomic, so that readers see either the old or the new content, but never a partially written file.
+ */
+final class AtomicFileWriter {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(AtomicFileWriter.class);
+    /**
+     * The buffer size used for writing.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Source of the random part of temporary file names.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private AtomicFileWriter() {
+        // utility class
+    }
+
+    /**
+     * Write a file atomically.
+     *
+     * @param target the target path
+     * @param writer the {@link FxDocument.ContentWriter} that writes the content
+     * @throws IOException if an I/O error occurs; the target file is left unchanged in this case
+     */
+    static void write(Path target, FxDocument.ContentWriter writer) throws IOException {
+        Path file = target.toAbsolutePath();
+        Path dir = Objects.requireNonNull(file.getParent(), () -> "no parent directory: " + file);
+
+        // Files.createTempFile() creates the file with owner-only permissions on POSIX systems; create the file
+        // directly instead, so that new files get the default permissions according to the umask
+        Path tmp = dir.resolve("." + file.getFileName() + "." + Long.toUnsignedString(RANDOM.nextLong(), 36) + ".tmp");
+        FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        boolean success = false;
+        try {
+            copyPermissions(file, tmp);
+
+            try (channel; OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+                writer.write(out);
+                out.flush();
+                channel.force(true);
+            }
+
+            move(tmp, file);
+            syncDirectory(dir);
+            success = true;
+        } finally {
+            if (!success) {
+                try {
+                    channel.close();
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    LOG.warn("could not delete temporary file {}", tmp, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move a file to the target location, atomically if supported by the file system.
+     *
+     * @param source the source
+     * @param target the target
+     * @throws IOException if the file could not be moved
+     */
+    static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.debug("atomic move not supported, falling back to non-atomic move: {}", target);
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Keep the permissions of an existing file when it is replaced.
+     */
+    private static void copyPermissions(Path file, Path tmp) {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try {
+            PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+            if (view != null) {
+                Files.setPosixFilePermissions(tmp, view.readAttributes().permissions());
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            LOG.debug("could not copy file permissions for {}", file, e);
+        }
+    }
+
+    /**
+     * Sync the directory so that the rename is persisted. This is not supported on all platforms.
+     */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOG.trace("could not sync directory {}", dir, e);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.beans.value.ChangeListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A service that automatically writes snapshots of modified documents to a directory.
+ * <p>
+ * Snapshots are written by calling {@link FxDocument#writeSnapshot(Path)} on a background thread. Autosaving can be
+ * triggered in two ways that can be combined:
+ * <ul>
+ *     <li><strong>interval:</strong> all watched documents that are dirty are saved periodically;</li>
+ *     <li><strong>idle:</strong> a dirty document is saved when it has not been changed for the idle delay. Changes
+ *     are reported through {@link FxDocument#changeCountProperty()} and the dirty state.</li>
+ * </ul>
+ * At most one snapshot is written per document at any time. The location of the document is stored next to each
+ * snapshot. When a document is saved explicitly, is no longer watched, or the service is closed, its snapshot is
+ * deleted, so that snapshots found in the directory indicate that the application was not shut down properly. Use
+ * {@link #getLeftoverSnapshots()} or {@link #scan(Path)} to find these snapshots.
+ */
+public final class AutosaveService implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(AutosaveService.class);
+    /**
+     * The file extension used for snapshots.
+     */
+    private static final String SNAPSHOT_EXTENSION = ".autosave";
+    /**
+     * The file extension appended to the snapshot file name for the file containing the document location.
+     */
+    private static final String LOCATION_EXTENSION = ".location";
+    /**
+     * The prefix of snapshot file names; it is followed by the process id and a counter.
+     */
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    /**
+     * Snapshots left over by processes that are no longer running are deleted when they are older than this.
+     */
+    private static final Duration MAX_LEFTOVER_AGE = Duration.ofDays(30);
+
+    /**
+     * A snapshot left over by an application instance that is no longer running.
+     *
+     * @param file         the snapshot file
+     * @param location     the location of the document when the snapshot was written, {@link FxDocument#VOID_URI}
+     *                     for documents that have not been saved yet
+     * @param lastModified the time the snapshot was written
+     */
+    public record Snapshot(Path file, URI location, Instant lastModified) {}
+
+    private final Path directory;
+    private final Duration idleDelay;
+    private final ScheduledExecutorService scheduler;
+    private final Executor writer;
+    private final Map<FxDocument, WatchedDocument> documents = new ConcurrentHashMap<>();
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final CompletableFuture<List<Snapshot>> leftovers;
+
+    /**
+     * Constructor.
+     * <p>
+     * The directory is scanned for snapshots left over by earlier runs in the background, see
+     * {@link #getLeftoverSnapshots()}.
+     *
+     * @param directory the directory to write snapshots to; it is created when the first snapshot is written
+     * @param interval  the interval for saving all dirty documents, {@link Duration#ZERO} to disable
+     * @param idleDelay the delay after the last change to a dirty document before it is saved, {@link Duration#ZERO}
+     *                  to disable
+     */
+    public AutosaveService(Path directory, Duration interval, Duration idleDelay) {
+        this.directory = directory;
+        this.idleDelay = idleDelay;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fx-autosave-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadFactory factory = Thread.ofVirtual().name("fx-autosave-", 0).factory();
+        this.writer = r -> factory.newThread(r).start();
+        this.leftovers = CompletableFuture.supplyAsync(() -> {
+            try {
+                return scan(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+
+        if (isEnabled(interval)) {
+            long ms = interval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::autosaveDirtyDocuments, ms, ms, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static boolean isEnabled(Duration d) {
+        return !d.isZero() && !d.isNegative();
+    }
+
+    /**
+     * Find snapshots left over by application instances that are no longer running.
+     * <p>
+     * Snapshots of running instances are skipped. Leftover snapshots that cannot be restored because the document
+     * location is missing, and leftover snapshots older than 30 days, are deleted.
+     *
+     * @param directory the snapshot directory
+     * @return list of snapshots, ordered by the time they were written
+     * @throws IOException on error
+     */
+    public static List<Snapshot> scan(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        Instant expired = Instant.now().minus(MAX_LEFTOVER_AGE);
+        List<Snapshot> snapshots = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SNAPSHOT_EXTENSION) && !name.endsWith(SNAPSHOT_EXTENSION + LOCATION_EXTENSION)) {
+                    continue;
+                }
+                if (isRunning(name)) {
+                    LOG.trace("skipping snapshot of running instance: {}", file);
+                    continue;
+                }
+
+                try {
+                    if (name.endsWith(LOCATION_EXTENSION)) {
+                        // location file without snapshot
+                        String snapshotName = name.substring(0, name.length() - LOCATION_EXTENSION.length());
+                        if (!Files.exists(directory.resolve(snapshotName))) {
+                            Files.deleteIfExists(file);
+                        }
+                        continue;
+                    }
+
+                    Path locationFile = locationFile(file);
+                    Instant lastModified = Files.getLastModifiedTime(file).toInstant();
+                    if (!Files.exists(locationFile) || lastModified.isBefore(expired)) {
+                        LOG.debug("deleting leftover snapshot {}", file);
+                        delete(file);
+                        continue;
+                    }
+
+                    URI location = URI.create(Files.readString(locationFile, StandardCharsets.UTF_8));
+                    snapshots.add(new Snapshot(file, location, lastModified));
+                } catch (IOException | IllegalArgumentException e) {
+                    LOG.warn("could not read autosave snapshot {}", file, e);
+                }
+            }
+        }
+
+        snapshots.sort(Comparator.comparing(Snapshot::lastModified));
+        return snapshots;
+    }
+
+    /**
+     * Check whether the process that wrote a snapshot is still running.
+     *
+     * @param name the file name of the snapshot
+     * @return true, if the process is running or the process id cannot be determined
+     */
+    private static boolean isRunning(String name) {
+        int end = name.indexOf('-', SNAPSHOT_PREFIX.length());
+        if (end < 0) {
+            return true;
+        }
+        try {
+            long pid = Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), end));
+            return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            LOG.debug("ignoring file with unexpected name in snapshot directory: {}", name);
+            return true;
+        }
+    }
+
+    private static Path locationFile(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + LOCATION_EXTENSION);
+    }
+
+    private static void delete(Path snapshot) throws IOException {
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(locationFile(snapshot));
+    }
+
+    /**
+     * Delete a leftover snapshot, e.g., after it has been restored or the user decided not to restore it.
+     *
+     * @param snapshot the snapshot
+     * @throws IOException on error
+     */
+    public static void discard(Snapshot snapshot) throws IOException {
+        delete(snapshot.file());
+    }
+
+    /**
+     * Get the snapshots left over by earlier runs of the application that were not shut down properly.
+     *
+     * @return a future that completes with the result of {@link #scan(Path)} for the snapshot directory when the
+     *         scan started by the constructor has finished
+     */
+    public CompletableFuture<List<Snapshot>> getLeftoverSnapshots() {
+        return leftovers;
+    }
+
+    /**
+     * Start watching a document.
+     *
+     * @param document the document
+     */
+    public void watch(FxDocument document) {
+        documents.computeIfAbsent(document, d -> {
+            String name = SNAPSHOT_PREFIX + ProcessHandle.current().pid() + "-" + counter.incrementAndGet() + SNAPSHOT_EXTENSION;
+            WatchedDocument watched = new WatchedDocument(d, directory.resolve(name));
+            watched.attach();
+            return watched;
+        });
+    }
+
+    /**
+     * Stop watching a document, e.g., because it has been closed. An existing snapshot of the document is deleted.
+     *
+     * @param document the document
+     */
+    public void unwatch(FxDocument document) {
+        WatchedDocument watched = documents.remove(document);
+        if (watched != null) {
+            watched.detach();
+            writer.execute(watched::deleteSnapshot);
+        }
+    }
+
+    /**
+     * Get the path of the current snapshot of a document.
+     *
+     * @param document the document
+     * @return the path of the snapshot, or an empty Optional if the document is not watched or no snapshot exists
+     */
+    public Optional<Path> getSnapshot(FxDocument document) {
+        return Optional.ofNullable(documents.get(document))
+                .map(watched -> watched.snapshot)
+                .filter(Files::exists);
+    }
+
+    private void autosaveDirtyDocuments() {
+        documents.values().forEach(WatchedDocument::autosave);
+    }
+
+    @Override
+    public void close() {
+        if (closed.getAndSet(true)) {
+            return;
+        }
+
+        LOG.debug("closing autosave service");
+        for (FxDocument document : List.copyOf(documents.keySet())) {
+            WatchedDocument watched = documents.remove(document);
+            if (watched != null) {
+                watched.detach();
+                // delete synchronously, the application is about to exit
+                watched.deleteSnapshot();
+            }
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * A document that is watched by this service.
+     */
+    private final class WatchedDocument {
+        private final FxDocument document;
+        private final Path snapshot;
+        private final AtomicBoolean inFlight = new AtomicBoolean(false);
+        private final ChangeListener<Boolean> dirtyListener = (v, o, n) -> {
+            if (Boolean.TRUE.equals(n)) {
+                scheduleIdleSave();
+            }
+        };
+        private final ChangeListener<Number> changeListener = (v, o, n) -> onChanged();
+        private final ChangeListener<@Nullable Instant> savedListener = (v, o, n) -> onSaved();
+        private @Nullable ScheduledFuture<?> pending;
+
+        WatchedDocument(FxDocument document, Path snapshot) {
+            this.document = document;
+            this.snapshot = snapshot;
+        }
+
+        void attach() {
+            document.dirtyProperty().addListener(dirtyListener);
+            document.changeCountProperty().addListener(changeListener);
+            document.lastSavedProperty().addListener(savedListener);
+            if (document.isDirty()) {
+                scheduleIdleSave();
+            }
+        }
+
+        void detach() {
+            document.dirtyProperty().removeListener(dirtyListener);
+            document.changeCountProperty().removeListener(changeListener);
+            document.lastSavedProperty().removeListener(savedListener);
+            cancelPending();
+        }
+
+        synchronized void scheduleIdleSave() {
+            if (!isEnabled(idleDelay) || closed.get()) {
+                return;
+            }
+
+            // debounce: restart the delay on each change
+            cancelPending();
+            pending = scheduler.schedule(this::autosave, idleDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void cancelPending() {
+            if (pending != null) {
+                pending.cancel(false);
+                pending = null;
+            }
+        }
+
+        void autosave() {
+            if (!document.isDirty() || document.isSaving() || !inFlight.compareAndSet(false, true)) {
+                return;
+            }
+
+            writer.execute(() -> {
+                try {
+                    Files.createDirectories(directory);
+                    byte[] location = document.getLocation().toString().getBytes(StandardCharsets.UTF_8);
+                    AtomicFileWriter.write(locationFile(snapshot), out -> out.write(location));
+                    document.writeSnapshot(snapshot);
+                    LOG.debug("autosaved {} to {}", document, snapshot);
+
+                    // the document might have been saved or closed while the snapshot was written
+                    if (!document.isDirty() || documents.get(document) != this) {
+                        deleteSnapshot();
+                    }
+                } catch (Exception e) {
+                    LOG.warn("autosave failed for {}", document, e);
+                } finally {
+                    inFlight.set(false);
+                }
+            });
+        }
+
+        void onChanged() {
+            if (document.isDirty()) {
+                scheduleIdleSave();
+            }
+        }
+
+        void onSaved() {
+            cancelPending();
+            writer.execute(this::deleteSnapshot);
+        }
+
+        void deleteSnapshot() {
+            try {
+                if (Files.deleteIfExists(snapshot)) {
+                    LOG.debug("deleted autosave snapshot {}", snapshot);
+                }
+                Files.deleteIfExists(locationFile(snapshot));
+            } catch (IOException e) {
+                LOG.warn("could not delete autosave snapshot {}", snapshot, e);
+            }
+        }
+    }
+}
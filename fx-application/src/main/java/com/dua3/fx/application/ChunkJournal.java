@@ -0,0 +1,392 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * A container file that stores a document as a set of chunks identified by a {@code long} id.
+ * <p>
+ * The file starts with a header, followed by a sequence of batches. Each batch consists of records followed by a
+ * commit record. Each record contains the chunk id, the data length, a checksum, and the chunk data. Records for the
+ * same id that appear later in the file replace earlier ones; a record with length {@code -1} marks a chunk as
+ * removed. The commit record contains the number of records in the batch and a checksum over the batch. This allows
+ * saving a document incrementally by appending a batch of records for modified chunks only. A batch without a valid
+ * commit record at the end of the file, i.e., from an interrupted append, is ignored as a whole when reading and
+ * overwritten by the next append, so that an incremental save is atomic.
+ * <p>
+ * Over time, the file accumulates records that have been replaced. When the ratio of such garbage gets too high,
+ * the file should be compacted by rewriting it using {@link #create(Path, Collection, ChunkSource)}.
+ */
+final class ChunkJournal {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(ChunkJournal.class);
+    /**
+     * The magic number at the start of the file ("FXJ2").
+     */
+    private static final int MAGIC = 0x46584A32;
+    /**
+     * Size of the file header in bytes.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES;
+    /**
+     * Size of a record header in bytes: id, length, checksum.
+     */
+    private static final int RECORD_HEADER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    /**
+     * The length value used to mark a removed chunk.
+     */
+    private static final int REMOVED = -1;
+    /**
+     * The length value used to mark a commit record. The id field contains the number of records in the batch, the
+     * checksum field the checksum over the headers and data of these records.
+     */
+    private static final int COMMIT = -2;
+    /**
+     * The buffer size used for appending records.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Functional interface to supply chunk data.
+     */
+    @FunctionalInterface
+    interface ChunkSource {
+        /**
+         * Get the data for a chunk.
+         *
+         * @param id the chunk id
+         * @return the chunk data
+         * @throws IOException on error
+         */
+        byte[] get(long id) throws IOException;
+    }
+
+    /**
+     * Location of a chunk's data inside the file.
+     *
+     * @param offset the file offset of the chunk data
+     * @param length the length of the chunk data
+     */
+    private record Entry(long offset, int length) {}
+
+    private final Path path;
+    private final Map<Long, Entry> index;
+    private long end;
+    private long liveBytes;
+    private FileTime lastModified;
+
+    private ChunkJournal(Path path, Map<Long, Entry> index, long end, FileTime lastModified) {
+        this.path = path;
+        this.index = index;
+        this.end = end;
+        this.liveBytes = index.values().stream().mapToLong(e -> RECORD_HEADER_SIZE + (long) e.length()).sum();
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Open an existing journal file and build the chunk index.
+     *
+     * @param path the path of the journal file
+     * @return the journal
+     * @throws IOException if the file cannot be read or is not a journal file
+     */
+    static ChunkJournal open(Path path) throws IOException {
+        Map<Long, Entry> index = new HashMap<>();
+        long pos = HEADER_SIZE;
+        long batchSize = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+            header.limit(HEADER_SIZE);
+            if (readFully(channel, header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                throw new IOException("not a journal file: " + path);
+            }
+
+            // changes of the current batch; a null value marks a removed chunk
+            Map<Long, @Nullable Entry> batch = new LinkedHashMap<>();
+            long committed = pos;
+            CRC32C crc = new CRC32C();
+            CRC32C batchCrc = new CRC32C();
+            while (true) {
+                header.clear();
+                if (readFully(channel, header, pos) < RECORD_HEADER_SIZE) {
+                    break;
+                }
+                long id = header.getLong(0);
+                int length = header.getInt(Long.BYTES);
+                int checksum = header.getInt(Long.BYTES + Integer.BYTES);
+
+                if (length == COMMIT) {
+                    if (id != batchSize || checksum != (int) batchCrc.getValue()) {
+                        break;
+                    }
+                    batch.forEach((chunk, entry) -> {
+                        if (entry == null) {
+                            index.remove(chunk);
+                        } else {
+                            index.put(chunk, entry);
+                        }
+                    });
+                    batch.clear();
+                    batchSize = 0;
+                    batchCrc.reset();
+                    pos += RECORD_HEADER_SIZE;
+                    committed = pos;
+                    continue;
+                }
+
+                if (length == REMOVED) {
+                    batchCrc.update(header.flip());
+                    batch.put(id, null);
+                    batchSize++;
+                    pos += RECORD_HEADER_SIZE;
+                    continue;
+                }
+
+                if (length < 0 || pos + RECORD_HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                ByteBuffer data = ByteBuffer.allocate(length);
+                readFully(channel, data, pos + RECORD_HEADER_SIZE);
+                crc.reset();
+                crc.update(data.flip());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                batchCrc.update(header.flip());
+                batchCrc.update(data.rewind());
+
+                batch.put(id, new Entry(pos + RECORD_HEADER_SIZE, length));
+                batchSize++;
+                pos += RECORD_HEADER_SIZE + length;
+            }
+
+            if (committed < size) {
+                LOG.warn("ignoring {} bytes of uncommitted or corrupted data at the end of {}", size - committed, path);
+            }
+            pos = committed;
+        }
+
+        return new ChunkJournal(path, index, pos, Files.getLastModifiedTime(path));
+    }
+
+    /**
+     * Create a new journal file containing the given chunks. An existing file is replaced atomically.
+     *
+     * @param path   the path of the journal file
+     * @param ids    the ids of the chunks to write
+     * @param source the source for the chunk data
+     * @return the journal
+     * @throws IOException on error
+     */
+    static ChunkJournal create(Path path, Collection<Long> ids, ChunkSource source) throws IOException {
+        Map<Long, Entry> index = new HashMap<>();
+        long[] pos = {HEADER_SIZE};
+
+        AtomicFileWriter.write(path, out -> {
+            new DataOutputStream(out).writeInt(MAGIC);
+            CheckedOutputStream checked = new CheckedOutputStream(out, new CRC32C());
+            DataOutputStream dos = new DataOutputStream(checked);
+            CRC32C crc = new CRC32C();
+            for (long id : ids) {
+                byte[] data = source.get(id);
+                writeRecord(dos, crc, id, data);
+                index.put(id, new Entry(pos[0] + RECORD_HEADER_SIZE, data.length));
+                pos[0] += RECORD_HEADER_SIZE + data.length;
+            }
+            writeCommit(dos, ids.size(), checked.getChecksum());
+            pos[0] += RECORD_HEADER_SIZE;
+            dos.flush();
+        });
+
+        return new ChunkJournal(path, index, pos[0], Files.getLastModifiedTime(path));
+    }
+
+    /**
+     * Append records for modified and removed chunks to the journal.
+     * <p>
+     * All records are written in a single sequential write, followed by a commit record, and synced to disk before
+     * this method returns. If writing is interrupted, none of the records are used when the journal is opened.
+     *
+     * @param ids     the ids of the modified chunks
+     * @param removed the ids of the removed chunks
+     * @param source  the source for the chunk data
+     * @throws IOException on error
+     */
+    void append(Collection<Long> ids, Collection<Long> removed, ChunkSource source) throws IOException {
+        if (ids.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Entry> added = new HashMap<>();
+        long pos = end;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // drop incomplete records left over from an interrupted append
+            channel.truncate(end);
+
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel.position(end)), BUFFER_SIZE),
+                    new CRC32C()
+            );
+            DataOutputStream dos = new DataOutputStream(checked);
+            CRC32C crc = new CRC32C();
+            for (long id : ids) {
+                byte[] data = source.get(id);
+                writeRecord(dos, crc, id, data);
+                added.put(id, new Entry(pos + RECORD_HEADER_SIZE, data.length));
+                pos += RECORD_HEADER_SIZE + data.length;
+            }
+            for (long id : removed) {
+                dos.writeLong(id);
+                dos.writeInt(REMOVED);
+                dos.writeInt(0);
+                pos += RECORD_HEADER_SIZE;
+            }
+            writeCommit(dos, ids.size() + removed.size(), checked.getChecksum());
+            pos += RECORD_HEADER_SIZE;
+            dos.flush();
+            channel.force(true);
+        }
+
+        for (long id : removed) {
+            Entry old = index.remove(id);
+            if (old != null) {
+                liveBytes -= RECORD_HEADER_SIZE + (long) old.length();
+            }
+        }
+        added.forEach((id, entry) -> {
+            Entry old = index.put(id, entry);
+            if (old != null) {
+                liveBytes -= RECORD_HEADER_SIZE + (long) old.length();
+            }
+            liveBytes += RECORD_HEADER_SIZE + (long) entry.length();
+        });
+        end = pos;
+        lastModified = Files.getLastModifiedTime(path);
+    }
+
+    /**
+     * Read all chunks from the journal.
+     *
+     * @return sorted map containing the data of each chunk by id
+     * @throws IOException on error
+     */
+    SortedMap<Long, ByteBuffer> readAll() throws IOException {
+        SortedMap<Long, ByteBuffer> chunks = new TreeMap<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (Map.Entry<Long, Entry> e : index.entrySet()) {
+                ByteBuffer data = ByteBuffer.allocate(e.getValue().length());
+                readFully(channel, data, e.getValue().offset());
+                chunks.put(e.getKey(), data.flip().asReadOnlyBuffer());
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Check whether this instance still reflects the file content, i.e., the file has not been modified by
+     * another process since it was last read or written.
+     *
+     * @param path the path of the file
+     * @return true, if the journal can be used to append to the file
+     */
+    boolean isCurrent(Path path) {
+        try {
+            return this.path.equals(path)
+                    && Files.size(path) >= end
+                    && Files.getLastModifiedTime(path).equals(lastModified);
+        } catch (IOException e) {
+            LOG.debug("could not check journal file {}", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the ids of the chunks in this journal.
+     *
+     * @return the chunk ids
+     */
+    Collection<Long> ids() {
+        return index.keySet();
+    }
+
+    /**
+     * Get the ratio of replaced or removed data in the journal file.
+     *
+     * @return value between 0 and 1 indicating the ratio of garbage in the file
+     */
+    double garbageRatio() {
+        long dataBytes = end - HEADER_SIZE;
+        return dataBytes <= 0 ? 0.0 : 1.0 - (double) liveBytes / dataBytes;
+    }
+
+    private static void writeRecord(DataOutputStream out, CRC32C crc, long id, byte[] data) throws IOException {
+        crc.reset();
+        crc.update(data);
+        out.writeLong(id);
+        out.writeInt(data.length);
+        out.writeInt((int) crc.getValue());
+        out.write(data);
+    }
+
+    private static void writeCommit(DataOutputStream out, long records, Checksum checksum) throws IOException {
+        int value = (int) checksum.getValue();
+        out.writeLong(records);
+        out.writeInt(COMMIT);
+        out.writeInt(value);
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,81 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.awt.Desktop;
+import java.io.File;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Integration with the desktop environment through {@code java.desktop}.
+ * <p>
+ * The module {@code java.desktop} is optional. All references to its classes are contained in a nested class that
+ * is only loaded when the module is present.
+ */
+final class DesktopIntegration {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(DesktopIntegration.class);
+
+    private DesktopIntegration() {
+        // utility class
+    }
+
+    /**
+     * Register a handler for requests from the operating system to open files, e.g., when the user opens a document
+     * associated with the application in the macOS Finder.
+     *
+     * @param handler the handler; it is called on an AWT thread
+     * @return true, if the handler was registered, false if not supported on this platform
+     */
+    static boolean installOpenFileHandler(Consumer<? super List<URI>> handler) {
+        if (ModuleLayer.boot().findModule("java.desktop").isEmpty()) {
+            LOG.debug("java.desktop is not available, open file handler not installed");
+            return false;
+        }
+
+        try {
+            return Awt.installOpenFileHandler(handler);
+        } catch (LinkageError | RuntimeException e) {
+            LOG.debug("could not install open file handler", e);
+            return false;
+        }
+    }
+
+    /**
+     * Holder for the code that references {@code java.desktop}.
+     */
+    private static final class Awt {
+        static boolean installOpenFileHandler(Consumer<? super List<URI>> handler) {
+            if (!Desktop.isDesktopSupported() || !Desktop.getDesktop().isSupported(Desktop.Action.APP_OPEN_FILE)) {
+                LOG.debug("open file events are not supported on this platform");
+                return false;
+            }
+
+            Desktop.getDesktop().setOpenFileHandler(evt -> handler.accept(
+                    evt.getFiles().stream().map(File::toPath).map(p -> p.toAbsolutePath().toUri()).toList()
+            ));
+            LOG.debug("open file handler installed");
+            return true;
+        }
+    }
+}
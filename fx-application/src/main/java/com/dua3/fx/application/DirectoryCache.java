@@ -0,0 +1,136 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Caches the initial directory for file dialogs.
+ * <p>
+ * Checking whether a directory exists can block for a long time on network file systems. This class checks the
+ * directory in the background and returns the result of the last check immediately. When no check has been completed
+ * for the requested directory, the fallback directory is returned and a check is started, so that the directory can be
+ * used the next time. Results older than the maximum age are still used, but checked again in the background.
+ * <p>
+ * Results are kept per directory, so that switching between folders, e.g., the folder of the current document and
+ * the folder of the last document, does not discard earlier results.
+ */
+final class DirectoryCache {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(DirectoryCache.class);
+
+    /**
+     * Executor for directory checks; every check runs on its own virtual thread.
+     */
+    private static final Executor IO_EXECUTOR = r -> Thread.ofVirtual().name("fx-directory-cache").start(r);
+
+    /**
+     * The result of a directory check.
+     *
+     * @param directory  the directory to use, either the requested directory or the fallback
+     * @param checkedAt  the value of {@link System#nanoTime()} at the time of the check
+     */
+    private record Resolved(Path directory, long checkedAt) {}
+
+    private final Supplier<Path> fallback;
+    private final long maxAgeNanos;
+    private final Map<Path, Resolved> resolved = new ConcurrentHashMap<>();
+    private final Map<Path, CompletableFuture<Path>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param fallback supplier of the directory to use when the requested directory has not been checked or does
+     *                 not exist
+     * @param maxAge   the maximum age of a check before the directory is checked again
+     */
+    DirectoryCache(Supplier<Path> fallback, Duration maxAge) {
+        this.fallback = fallback;
+        this.maxAgeNanos = maxAge.toNanos();
+    }
+
+    /**
+     * Get the directory to use without blocking.
+     *
+     * @param candidate the requested directory, or {@code null} to use the fallback
+     * @return the candidate if it was found to be a directory by the last check, the fallback otherwise
+     */
+    Path get(@Nullable Path candidate) {
+        if (candidate == null) {
+            return fallback.get();
+        }
+
+        Resolved r = resolved.get(candidate);
+        if (r == null) {
+            LOG.debug("directory not checked yet, using fallback: {}", candidate);
+            refresh(candidate);
+            return fallback.get();
+        }
+
+        if (System.nanoTime() - r.checkedAt() > maxAgeNanos) {
+            refresh(candidate);
+        }
+        return r.directory();
+    }
+
+    /**
+     * Check a directory in the background and cache the result. If a check of the same directory is already running,
+     * no new check is started.
+     *
+     * @param candidate the directory to check
+     * @return a future that completes with the directory to use
+     */
+    CompletableFuture<Path> refresh(Path candidate) {
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        CompletableFuture<Path> running = pending.putIfAbsent(candidate, future);
+        if (running != null) {
+            return running;
+        }
+
+        IO_EXECUTOR.execute(() -> {
+            try {
+                future.complete(check(candidate));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                pending.remove(candidate, future);
+            }
+        });
+        return future;
+    }
+
+    private Path check(Path candidate) {
+        Path directory = Files.isDirectory(candidate) ? candidate : fallback.get();
+        if (directory != candidate) {
+            LOG.debug("not a directory, using fallback: {}", candidate);
+        }
+        resolved.put(candidate, new Resolved(directory, System.nanoTime()));
+        return directory;
+    }
+}
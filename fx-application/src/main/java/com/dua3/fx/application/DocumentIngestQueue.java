@@ -0,0 +1,160 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A queue of documents to open, e.g., documents passed on the command line, dropped onto the application window, or
+ * sent by the operating system.
+ * <p>
+ * URIs can be added from any thread. A URI that is already queued or currently being opened is ignored. The queued
+ * URIs are passed to the sink in batches on the JavaFX Application Thread; the next batch is passed only after the
+ * future returned by the sink for the previous batch has completed. Only the URIs are held in memory while they are
+ * waiting, so that adding a large number of documents does not create a large number of tasks.
+ */
+public final class DocumentIngestQueue {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(DocumentIngestQueue.class);
+
+    /**
+     * The default maximum number of documents passed to the sink at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Function<? super List<URI>, ? extends CompletableFuture<?>> sink;
+    private final int batchSize;
+
+    private final Object lock = new Object();
+    private final Set<URI> queued = new LinkedHashSet<>();
+    private final Set<URI> inFlight = new HashSet<>();
+    private boolean running = false;
+
+    /**
+     * Constructor.
+     *
+     * @param sink      the function that opens a batch of documents; called on the JavaFX Application Thread, it
+     *                  returns a future that completes when the batch has been processed
+     * @param batchSize the maximum number of documents passed to the sink at once
+     */
+    public DocumentIngestQueue(Function<? super List<URI>, ? extends CompletableFuture<?>> sink, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1: " + batchSize);
+        }
+
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Add a document to the queue.
+     *
+     * @param uri the document URI
+     * @return true, if the document was added, false if it is already queued or being opened
+     */
+    public boolean add(URI uri) {
+        return addAll(List.of(uri)) == 1;
+    }
+
+    /**
+     * Add documents to the queue.
+     *
+     * @param uris the document URIs
+     * @return the number of documents added; documents that are already queued or being opened are not counted
+     */
+    public int addAll(Collection<URI> uris) {
+        int added = 0;
+        boolean start = false;
+        synchronized (lock) {
+            for (URI uri : uris) {
+                URI normalized = uri.normalize();
+                if (!inFlight.contains(normalized) && queued.add(normalized)) {
+                    added++;
+                }
+            }
+            if (!running && !queued.isEmpty()) {
+                running = true;
+                start = true;
+            }
+        }
+
+        LOG.debug("{} of {} documents queued", added, uris.size());
+        if (start) {
+            Platform.runLater(this::next);
+        }
+        return added;
+    }
+
+    /**
+     * Get the number of documents waiting to be passed to the sink.
+     *
+     * @return the number of queued documents
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return queued.size();
+        }
+    }
+
+    /**
+     * Pass the next batch to the sink. Runs on the FX thread.
+     */
+    private void next() {
+        List<URI> batch;
+        synchronized (lock) {
+            inFlight.clear();
+            if (queued.isEmpty()) {
+                running = false;
+                return;
+            }
+
+            batch = new ArrayList<>(Math.min(batchSize, queued.size()));
+            Iterator<URI> iter = queued.iterator();
+            while (batch.size() < batchSize && iter.hasNext()) {
+                batch.add(iter.next());
+                iter.remove();
+            }
+            inFlight.addAll(batch);
+        }
+
+        try {
+            sink.apply(List.copyOf(batch)).whenComplete((result, e) -> {
+                if (e != null) {
+                    LOG.warn("error opening documents", e);
+                }
+                Platform.runLater(this::next);
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("error opening documents", e);
+            Platform.runLater(this::next);
+        }
+    }
+}
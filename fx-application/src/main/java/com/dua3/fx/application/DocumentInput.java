@@ -0,0 +1,248 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import com.dua3.utility.lang.LangUtil;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read access to the content of a document that is being loaded.
+ * <p>
+ * Instances created by {@link #open(URI)} read the content through a buffered stream; the content can also be read
+ * into a heap buffer, and for local files the size is known in advance. Instances created by
+ * {@link #openMapped(URI)} map local files into memory read-only, so that documents can be parsed without copying
+ * the content to the heap.
+ * <p>
+ * Instances are passed to {@link FxController#loadDocument(DocumentInput)}. A mapped buffer stays valid after the
+ * input has been closed; the mapping is released when the buffer is garbage collected. On Windows, a file cannot be
+ * replaced, truncated, or deleted while a mapping exists, so mapping should only be used for files that are not
+ * written while the document is open.
+ */
+public final class DocumentInput implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(DocumentInput.class);
+    /**
+     * The buffer size for streams.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final URI uri;
+    private final long size;
+    private final boolean mapped;
+    private @Nullable ByteBuffer buffer;
+    private @Nullable InputStream in;
+    private boolean streamRequested = false;
+
+    private DocumentInput(URI uri, long size, @Nullable ByteBuffer buffer, @Nullable InputStream in) {
+        this.uri = uri;
+        this.size = size;
+        this.mapped = buffer != null;
+        this.buffer = buffer;
+        this.in = in;
+    }
+
+    /**
+     * Open a document for reading through a stream.
+     * <p>
+     * The file is closed when the input is closed, so that it can be replaced when the document is saved.
+     *
+     * @param uri the document URI
+     * @return the input for the document
+     * @throws IOException if the document cannot be opened
+     */
+    public static DocumentInput open(URI uri) throws IOException {
+        if (!"file".equalsIgnoreCase(uri.getScheme())) {
+            LOG.debug("opening stream for {}", uri);
+            return new DocumentInput(uri, -1, null, new BufferedInputStream(uri.toURL().openStream(), BUFFER_SIZE));
+        }
+
+        Path path = Paths.get(uri);
+        InputStream in = Files.newInputStream(path);
+        try {
+            long size = Files.size(path);
+            LOG.debug("opening stream for {} ({} bytes)", path, size);
+            return new DocumentInput(uri, size, null, new BufferedInputStream(in, BUFFER_SIZE));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open a document for reading through a memory mapped buffer.
+     * <p>
+     * Local files of up to 2 GB are mapped into memory read-only. Other URIs and larger files are opened like in
+     * {@link #open(URI)}. The mapping is not released when the input is closed, see the class documentation.
+     *
+     * @param uri the document URI
+     * @return the input for the document
+     * @throws IOException if the document cannot be opened
+     */
+    public static DocumentInput openMapped(URI uri) throws IOException {
+        if (!"file".equalsIgnoreCase(uri.getScheme())) {
+            return open(uri);
+        }
+
+        Path path = Paths.get(uri);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= Integer.MAX_VALUE) {
+                LOG.debug("mapping {} ({} bytes)", path, size);
+                return new DocumentInput(uri, size, channel.map(FileChannel.MapMode.READ_ONLY, 0, size), null);
+            }
+        }
+
+        LOG.debug("file too large to be mapped: {}", path);
+        return open(uri);
+    }
+
+    /**
+     * Get the URI of the document.
+     *
+     * @return the document URI
+     */
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * Check whether the document content is memory mapped.
+     *
+     * @return true, if the content is accessed through a memory mapped buffer
+     */
+    public boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Get the size of the document content.
+     *
+     * @return the size in bytes, or -1 if the size is not known in advance
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Get the document content as a read-only buffer.
+     * <p>
+     * Each call returns a new buffer that shares the content and has independent position and limit. If the content
+     * is not memory mapped, the content of the stream is read into a heap buffer on the first call and the stream is
+     * closed.
+     *
+     * @return read-only buffer containing the document content, positioned at the start of the content
+     * @throws IOException if the content cannot be read
+     * @throws IllegalStateException if the content is not mapped and {@link #inputStream()} has already been called
+     */
+    public ByteBuffer buffer() throws IOException {
+        if (buffer == null) {
+            LangUtil.check(!streamRequested, "content is already being read as stream");
+            try (InputStream stream = takeStream()) {
+                buffer = ByteBuffer.wrap(stream.readAllBytes()).asReadOnlyBuffer();
+            }
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * Get the document content as a stream.
+     * <p>
+     * If the content is memory mapped or has already been read by calling {@link #buffer()}, the stream reads
+     * directly from the buffer and this method can be called multiple times. Otherwise, the buffered stream opened
+     * for the document is returned and this method can be called only once.
+     *
+     * @return stream reading the document content
+     * @throws IllegalStateException if the content is not mapped and the stream has already been requested
+     */
+    public InputStream inputStream() {
+        if (buffer != null) {
+            return new ByteBufferInputStream(buffer.duplicate());
+        }
+        streamRequested = true;
+        return takeStream();
+    }
+
+    private InputStream takeStream() {
+        InputStream stream = in;
+        LangUtil.check(stream != null, "stream has already been consumed");
+        in = null;
+        return stream;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    /**
+     * An InputStream reading from a ByteBuffer.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int k = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + k);
+            return k;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
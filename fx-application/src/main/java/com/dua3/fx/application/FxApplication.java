@@ -26,6 +26,11 @@ import javafx.application.Application;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.input.DragEvent;
+import javafx.scene.input.Dragboard;
+import javafx.scene.input.TransferMode;
+import javafx.scene.layout.StackPane;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.FileChooser;
@@ -41,16 +46,29 @@ import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
+import java.util.regex.Pattern;
 
 /**
  * This abstract class represents a JavaFX application. It extends the javafx.application.Application class.
@@ -90,18 +108,31 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      * Represents the key for retrieving the application name from the resource bundle.
      */
     private static final String FX_APPLICATION_NAME = "fx.application.name";
+    /**
+     * The maximum time to wait for pending preference changes to be written when closing the application.
+     */
+    private static final Duration PREFERENCES_WRITE_TIMEOUT = Duration.ofSeconds(2);
+    /**
+     * Pattern matching the scheme of a URI passed on the command line; at least two characters so that Windows drive
+     * letters are not mistaken for a scheme.
+     */
+    private static final Pattern PATTERN_URI_SCHEME = Pattern.compile("[a-zA-Z][a-zA-Z0-9+.-]+:");
     /**
      * List of Resource cleanup tasks to run on application stop.
      */
     private final List<Runnable> cleanupActions = new ArrayList<>();
+    /**
+     * The startup timeline; created first so that it covers the whole construction of the application instance.
+     */
+    private final StartupTimeline startupTimeline = new StartupTimeline();
     /**
      * The resource bundle
      */
     protected final I18N i18n;
     /**
-     * The directory containing application data.
+     * The directory containing application data; {@code null} until resolution is first requested.
      */
-    protected final Path dataDir = initApplicationDataDir();
+    private volatile @Nullable CompletableFuture<Path> dataDir;
     /**
      * The current license used for the application.
      */
@@ -112,10 +143,51 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      * Preferences
      */
     protected @Nullable Preferences preferences;
+    /**
+     * The cache for the preferences.
+     */
+    private volatile @Nullable PreferenceCache preferenceCache;
     /**
      * The controller instance.
      */
     protected @Nullable C controller;
+    /**
+     * Flag indicating that an update of the application title has been requested but not yet performed.
+     */
+    private final AtomicBoolean titleUpdatePending = new AtomicBoolean(false);
+    /**
+     * The localized application name, cached for title updates.
+     */
+    private @Nullable String applicationName;
+    /**
+     * The localized text for untitled documents, cached for title updates.
+     */
+    private @Nullable String untitledText;
+    /**
+     * Flag indicating whether the user interface is created on a background thread.
+     */
+    private boolean loadUiInBackground = false;
+    /**
+     * Flag indicating whether documents from the command line, drag and drop, and the operating system are opened.
+     */
+    private boolean documentIngestEnabled = false;
+    /**
+     * Flag indicating whether the application runs in single-instance mode.
+     */
+    private boolean singleInstance = false;
+    /**
+     * Documents received before the controller was connected; only accessed on the JavaFX Application Thread.
+     */
+    private final List<URI> pendingDocuments = new ArrayList<>();
+    /**
+     * Flag indicating that the controller has been connected; only accessed on the JavaFX Application Thread.
+     */
+    private boolean controllerAttached = false;
+    /**
+     * The resolved location of the application CSS; {@code null} if not yet resolved.
+     */
+    @SuppressWarnings("OptionalUsedAsFieldOrParameterType")
+    private volatile @Nullable Optional<URL> cssUrl;
 
     // - UI -
 
@@ -135,10 +207,24 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      */
     protected FxApplication(I18N i18n, @Nullable LicenseData license) {
         this.i18n = i18n;
-        this.i18n.mergeBundle(FxApplication.class.getPackageName() + ".application", i18n.getLocale());
+        try (var phase = startupTimeline.phase("mergeBundle")) {
+            this.i18n.mergeBundle(FxApplication.class.getPackageName() + ".application", i18n.getLocale());
+        }
         this.license = license;
     }
 
+    /**
+     * Get the startup timeline of this application.
+     * <p>
+     * The timeline records the phases of construction and {@link #start(Stage)}, and the time to the first frame.
+     * Subclasses can record additional phases using {@link StartupTimeline#phase(String)}.
+     *
+     * @return the startup timeline
+     */
+    public final StartupTimeline getStartupTimeline() {
+        return startupTimeline;
+    }
+
     /**
      * Retrieves the license associated with this application, if available.
      *
@@ -214,10 +300,160 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
         return getParameters().getUnnamed().contains(name);
     }
 
+    /**
+     * Get the documents passed on the command line.
+     * <p>
+     * The default implementation treats all unnamed parameters that do not start with '-' as documents. Parameters
+     * starting with a URI scheme, e.g. "file:" or "https:", are used as URIs, all others are resolved as paths
+     * relative to the working directory. Invalid parameters are logged and ignored.
+     *
+     * @return the URIs of the documents passed on the command line
+     */
+    protected List<URI> getDocumentArguments() {
+        Parameters parameters = getParameters();
+        if (parameters == null) {
+            return List.of();
+        }
+
+        List<URI> uris = new ArrayList<>();
+        for (String arg : parameters.getUnnamed()) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            try {
+                uris.add(toDocumentUri(arg));
+            } catch (IllegalArgumentException e) {
+                // also covers InvalidPathException
+                LOG.warn("ignoring invalid document argument: {}", arg, e);
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Convert a command line argument to a document URI.
+     *
+     * @param arg the argument
+     * @return the URI
+     * @throws IllegalArgumentException if the argument looks like a URI but is not valid
+     * @throws InvalidPathException     if the argument is not a valid path
+     */
+    static URI toDocumentUri(String arg) {
+        if (PATTERN_URI_SCHEME.matcher(arg).lookingAt()) {
+            return URI.create(arg);
+        }
+        return Paths.get(arg).toAbsolutePath().normalize().toUri();
+    }
+
+    /**
+     * Initialize the application.
+     * <p>
+     * Runs the tasks returned by {@link #initTasks()} in parallel on virtual threads and waits for them to complete.
+     * If single-instance mode is enabled, starts listening for requests from other instances afterward.
+     * This method is called by the JavaFX launcher on the launcher thread before {@link #start(Stage)} is called.
+     *
+     * @throws Exception if an exception occurs during initialization
+     */
+    @Override
+    public void init() throws Exception {
+        super.init();
+
+        try (var phase = startupTimeline.phase("init");
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            initTasks().forEach((name, task) -> futures.put(name, executor.submit(() -> {
+                try (var taskPhase = startupTimeline.phase("init:" + name)) {
+                    task.run();
+                }
+            })));
+
+            for (var entry : futures.entrySet()) {
+                try {
+                    entry.getValue().get();
+                } catch (ExecutionException e) {
+                    LOG.warn("init task '{}' failed", entry.getKey(), e.getCause());
+                }
+            }
+        }
+
+        if (singleInstance) {
+            SingleInstance.listen(getDataDir().resolve(SingleInstance.SOCKET_NAME), this::documentsForwarded)
+                    .ifPresent(instance -> addCleanupAction(instance::close));
+        }
+    }
+
+    /**
+     * Called when another instance forwarded documents to this instance. Opens the documents and brings the main
+     * window to the front.
+     *
+     * @param uris the URIs of the forwarded documents
+     */
+    private void documentsForwarded(List<URI> uris) {
+        ingestDocuments(uris);
+        javafx.application.Platform.runLater(() -> {
+            if (mainStage != null) {
+                mainStage.setIconified(false);
+                mainStage.toFront();
+            }
+        });
+    }
+
+    /**
+     * Get the tasks to run during {@link #init()}.
+     * <p>
+     * The tasks are independent of each other and run in parallel off the JavaFX Application Thread. They are meant
+     * to move expensive work out of {@link #start(Stage)}, for example by loading resources or warming caches that
+     * are used when the UI is created. A failing task is logged and does not prevent the application from starting,
+     * so the work done by a task must not be required for correctness.
+     * <p>
+     * Subclasses that override this method should add their tasks to the map returned by the super implementation.
+     * The default tasks resolve the application data directory, load the preferences backing store, and resolve the
+     * application CSS.
+     *
+     * @return modifiable map of task names to tasks
+     */
+    protected Map<String, Runnable> initTasks() {
+        Map<String, Runnable> tasks = new LinkedHashMap<>();
+        tasks.put("dataDir", () -> getDataDirAsync().join());
+        tasks.put("preferences", this::loadPreferencesStore);
+        tasks.put("css", this::resolveCss);
+        return tasks;
+    }
+
+    /**
+     * Load the preferences backing store for this application so that the first access to the preferences does not
+     * block the JavaFX Application Thread. This does not create the {@link Preferences} instance returned by
+     * {@link #getPreferences()}.
+     */
+    private void loadPreferencesStore() {
+        try {
+            String[] keys = Preferences.userRoot().node(getClass().getName()).keys();
+            LOG.debug("preferences store loaded, {} keys", keys.length);
+        } catch (BackingStoreException e) {
+            LOG.warn("could not load preferences", e);
+        }
+    }
+
+    /**
+     * Get the application CSS, calling {@link #getCss()} only once.
+     *
+     * @return an Optional holding the location of the application CSS
+     */
+    private Optional<URL> resolveCss() {
+        Optional<URL> css = cssUrl;
+        if (css == null) {
+            css = getCss();
+            cssUrl = css;
+        }
+        return css;
+    }
+
     /**
      * Initialize User Interface. The layout is defined in FXML.
+     * <p>
+     * If background loading of the user interface is enabled (see {@link #setLoadUiInBackground(boolean)}), a
+     * placeholder is shown while the user interface is created on a background thread.
      */
-    @SuppressWarnings("unchecked")
     @Override
     public void start(Stage primaryStage) {
         LOG.info("starting application");
@@ -226,45 +462,33 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
             // store reference to stage
             this.mainStage = primaryStage;
 
+            if (documentIngestEnabled) {
+                DesktopIntegration.installOpenFileHandler(this::ingestDocuments);
+            }
+
+            if (loadUiInBackground) {
+                startInBackground(primaryStage);
+                return;
+            }
+
             // create the parent
-            Parent root = createParentAndInitController();
-            Objects.requireNonNull(controller, "controller was not initialized in createParentAndInitController()");
-            controller.setApp((A) this);
+            Parent root = createParent();
 
             // create scene
-            Scene scene = new Scene(root);
-
-            // load CSS
-            getCss().ifPresent(css -> scene.getStylesheets().add(css.toExternalForm()));
+            Scene scene = createScene(root);
 
             // setup stage
             primaryStage.setTitle(i18n.get(FX_APPLICATION_NAME));
             primaryStage.setScene(scene);
 
-            // automatically update title on document change
-            final ChangeListener<Boolean> dirtyStateListener = (v, o, n) -> updateApplicationTitle();
-
-            final ChangeListener<@Nullable URI> locationListener = (v, o, n) -> updateApplicationTitle();
-
-            controller.currentDocumentProperty.addListener(
-                    (ObservableValue<? extends FxDocument> observable, @Nullable FxDocument o, @Nullable FxDocument n) -> {
-                        updateApplicationTitle();
-                        if (o != null) {
-                            o.dirtyProperty().removeListener(dirtyStateListener);
-                            o.locationProperty().removeListener(locationListener);
-                        }
-                        if (n != null) {
-                            n.dirtyProperty().addListener(dirtyStateListener);
-                            n.locationProperty().addListener(locationListener);
-                        }
-                    });
+            attachController(primaryStage);
 
-            primaryStage.setOnCloseRequest(e -> {
-                e.consume();
-                controller.closeApplicationWindow();
-            });
+            try (var phase = startupTimeline.phase("show")) {
+                primaryStage.show();
+            }
 
-            primaryStage.show();
+            // offer to restore unsaved changes from a previous session once the window is visible
+            javafx.application.Platform.runLater(getController()::offerRecovery);
 
             LOG.debug("application started");
         } catch (Exception e) {
@@ -272,6 +496,290 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
         }
     }
 
+    /**
+     * Show the placeholder and create the user interface on a background thread. When done, the user interface
+     * replaces the placeholder on the JavaFX Application Thread.
+     *
+     * @param primaryStage the primary stage
+     */
+    private void startInBackground(Stage primaryStage) {
+        Scene scene = createScene(createPlaceholder());
+        primaryStage.setTitle(i18n.get(FX_APPLICATION_NAME));
+        primaryStage.setScene(scene);
+
+        try (var phase = startupTimeline.phase("show")) {
+            primaryStage.show();
+        }
+
+        Thread loader = new Thread(() -> {
+            try {
+                Parent root = createParent();
+                javafx.application.Platform.runLater(() -> {
+                    try (var phase = startupTimeline.phase("attachUi")) {
+                        scene.setRoot(root);
+                        primaryStage.sizeToScene();
+                        attachController(primaryStage);
+                    } catch (Throwable t) {
+                        uiCreationFailed(t);
+                        return;
+                    }
+
+                    // offer to restore unsaved changes from a previous session once the window is visible
+                    javafx.application.Platform.runLater(getController()::offerRecovery);
+
+                    LOG.debug("application started");
+                });
+            } catch (Throwable t) {
+                // also report errors, e.g., a missing class, or the placeholder would be shown forever
+                javafx.application.Platform.runLater(() -> uiCreationFailed(t));
+            }
+        }, "fx-ui-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Called on the JavaFX Application Thread when creating the user interface in the background has failed.
+     * <p>
+     * The default implementation shows an error dialog and exits the application, since the application cannot be
+     * used without its user interface.
+     *
+     * @param t the exception or error that caused the failure
+     */
+    protected void uiCreationFailed(Throwable t) {
+        LOG.fatal("error during application start", t);
+        try {
+            showErrorDialog(i18n.get("fx.application.dialog.error.start"), Objects.toString(t.getLocalizedMessage(), t.getClass().getName()));
+        } finally {
+            javafx.application.Platform.exit();
+        }
+    }
+
+    /**
+     * Create the parent node of the user interface by calling {@link #createParentAndInitController()}.
+     *
+     * @return the parent node
+     * @throws Exception if an error occurs during the creation or initialization process
+     */
+    private Parent createParent() throws Exception {
+        try (var phase = startupTimeline.phase("createParent")) {
+            Parent root = createParentAndInitController();
+            Objects.requireNonNull(controller, "controller was not initialized in createParentAndInitController()");
+            return root;
+        }
+    }
+
+    /**
+     * Create the scene, load the application CSS, and register the listener that records the first frame.
+     *
+     * @param root the root node
+     * @return the scene
+     */
+    private Scene createScene(Parent root) {
+        Scene scene;
+        try (var phase = startupTimeline.phase("createScene")) {
+            scene = new Scene(root);
+        }
+
+        // load CSS
+        try (var phase = startupTimeline.phase("loadCss")) {
+            resolveCss().ifPresent(css -> scene.getStylesheets().add(css.toExternalForm()));
+        }
+
+        // open dropped files
+        if (documentIngestEnabled) {
+            installDropHandler(scene);
+        }
+
+        // record the first frame
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                startupTimeline.markFirstFrame();
+                javafx.application.Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+            }
+        });
+
+        return scene;
+    }
+
+    /**
+     * Connect the controller to this application and the primary stage.
+     *
+     * @param primaryStage the primary stage
+     */
+    @SuppressWarnings("unchecked")
+    private void attachController(Stage primaryStage) {
+        C controller = getController();
+        controller.setApp((A) this);
+
+        // automatically update title on document change
+        final ChangeListener<Boolean> dirtyStateListener = (v, o, n) -> requestApplicationTitleUpdate();
+
+        final ChangeListener<@Nullable URI> locationListener = (v, o, n) -> requestApplicationTitleUpdate();
+
+        controller.currentDocumentProperty.addListener(
+                (ObservableValue<? extends FxDocument> observable, @Nullable FxDocument o, @Nullable FxDocument n) -> {
+                    requestApplicationTitleUpdate();
+                    if (o != null) {
+                        o.dirtyProperty().removeListener(dirtyStateListener);
+                        o.locationProperty().removeListener(locationListener);
+                    }
+                    if (n != null) {
+                        n.dirtyProperty().addListener(dirtyStateListener);
+                        n.locationProperty().addListener(locationListener);
+                    }
+                });
+
+        primaryStage.setOnCloseRequest(e -> {
+            e.consume();
+            controller.closeApplicationWindow();
+        });
+
+        // pass documents from the command line and documents received during startup to the controller; documents
+        // received during startup are always passed on as they may have been forwarded by another instance
+        controllerAttached = true;
+        List<URI> documents = new ArrayList<>();
+        if (documentIngestEnabled) {
+            documents.addAll(getDocumentArguments());
+        }
+        documents.addAll(pendingDocuments);
+        pendingDocuments.clear();
+        if (!documents.isEmpty()) {
+            controller.getIngestQueue().addAll(documents);
+        }
+    }
+
+    /**
+     * Accept files dragged onto the scene and open them.
+     * <p>
+     * The handlers are added as event handlers to the scene, so they only receive drag events that have not been
+     * consumed by a node.
+     *
+     * @param scene the scene
+     */
+    private void installDropHandler(Scene scene) {
+        scene.addEventHandler(DragEvent.DRAG_OVER, evt -> {
+            if (evt.getDragboard().hasFiles()) {
+                evt.acceptTransferModes(TransferMode.COPY);
+                evt.consume();
+            }
+        });
+        scene.addEventHandler(DragEvent.DRAG_DROPPED, evt -> {
+            Dragboard dragboard = evt.getDragboard();
+            if (dragboard.hasFiles()) {
+                ingestDocuments(dragboard.getFiles().stream().map(f -> f.toPath().toAbsolutePath().toUri()).toList());
+                evt.setDropCompleted(true);
+                evt.consume();
+            }
+        });
+    }
+
+    /**
+     * Open documents passed to the application from outside, e.g., dropped files.
+     * <p>
+     * The documents are added to the controller's {@link FxController#getIngestQueue() ingest queue}. Documents that
+     * are received before the controller has been connected are queued when it is, regardless of
+     * {@link #isDocumentIngestEnabled()}. This method can be called from any thread.
+     *
+     * @param uris the URIs of the documents
+     */
+    public void ingestDocuments(Collection<URI> uris) {
+        List<URI> documents = List.copyOf(uris);
+        javafx.application.Platform.runLater(() -> {
+            if (controllerAttached) {
+                getController().getIngestQueue().addAll(documents);
+            } else {
+                pendingDocuments.addAll(documents);
+            }
+        });
+    }
+
+    /**
+     * Check whether documents passed to the application from outside are opened.
+     *
+     * @return true, if documents from the command line, drag and drop, and the operating system are opened
+     */
+    public boolean isDocumentIngestEnabled() {
+        return documentIngestEnabled;
+    }
+
+    /**
+     * Enable or disable opening documents passed to the application from outside.
+     * <p>
+     * When enabled, the documents returned by {@link #getDocumentArguments()}, files dropped onto the main scene, and
+     * files the operating system requests the application to open (if supported by the platform and the module
+     * {@code java.desktop} is present) are passed to {@link #ingestDocuments(Collection)}. This must be set before
+     * the application is started, i.e., in the constructor.
+     *
+     * @param documentIngestEnabled true, to open documents passed to the application
+     */
+    protected void setDocumentIngestEnabled(boolean documentIngestEnabled) {
+        this.documentIngestEnabled = documentIngestEnabled;
+    }
+
+    /**
+     * Check whether the application runs in single-instance mode.
+     *
+     * @return true, if single-instance mode is enabled
+     */
+    public boolean isSingleInstance() {
+        return singleInstance;
+    }
+
+    /**
+     * Enable or disable single-instance mode.
+     * <p>
+     * When enabled, the application listens for requests from instances launched later, and documents forwarded by
+     * them are passed to {@link #ingestDocuments(Collection)}. The application's {@code main()} method must call
+     * {@link SingleInstance#forwardToRunningInstance(Class, String...)} before launching the application. This must be
+     * set before the application is initialized, i.e., in the constructor.
+     *
+     * @param singleInstance true, to enable single-instance mode
+     */
+    protected void setSingleInstance(boolean singleInstance) {
+        this.singleInstance = singleInstance;
+    }
+
+    /**
+     * Check whether the user interface is created on a background thread.
+     *
+     * @return true, if the user interface is created in the background
+     */
+    public boolean isLoadUiInBackground() {
+        return loadUiInBackground;
+    }
+
+    /**
+     * Enable or disable creating the user interface on a background thread.
+     * <p>
+     * When enabled, {@link #start(Stage)} shows the node returned by {@link #createPlaceholder()} and calls
+     * {@link #createParentAndInitController()} on a background thread. Creating nodes off the JavaFX Application
+     * Thread is allowed as long as they are not attached to a scene that is showing, but the implementation must not
+     * create windows or access the primary stage. The controller is connected to the application on the JavaFX
+     * Application Thread after the user interface has been created. This must be set before the application is
+     * started, i.e., in the constructor.
+     *
+     * @param loadUiInBackground true, to create the user interface in the background
+     */
+    protected void setLoadUiInBackground(boolean loadUiInBackground) {
+        this.loadUiInBackground = loadUiInBackground;
+    }
+
+    /**
+     * Create the placeholder that is shown while the user interface is created in the background.
+     * <p>
+     * The default implementation returns a progress indicator. The placeholder is created on the JavaFX Application
+     * Thread and should be cheap to create.
+     *
+     * @return the placeholder node
+     */
+    protected Parent createPlaceholder() {
+        StackPane placeholder = new StackPane(new ProgressIndicator());
+        placeholder.setPrefSize(400, 300);
+        return placeholder;
+    }
+
     /**
      * Creates the parent node for the User Interface and initializes the controller.
      * This method must be implemented by subclasses.
@@ -306,26 +814,45 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
     }
 
     /**
-     * Update the application title based on the current document.
-     * The application title is constructed using the following logic:
-     * 1. The title starts with the localized application name retrieved from a resource bundle.
-     * 2. If there is a current document, the title is appended with the document's location or a localized "untitled" text.
-     * 3. If the document is dirty (modified), a dirty marker is appended to the title.
-     * Finally, the updated title is set as the title of the main stage.
+     * Request an update of the application title.
+     * <p>
+     * Requests are coalesced: the title is updated once on the JavaFX Application Thread, no matter how many
+     * requests are made before the update runs. This method can be called from any thread.
+     */
+    protected final void requestApplicationTitleUpdate() {
+        if (titleUpdatePending.compareAndSet(false, true)) {
+            javafx.application.Platform.runLater(() -> {
+                titleUpdatePending.set(false);
+                updateApplicationTitle();
+            });
+        }
+    }
+
+    /**
+     * Update the application title. The window title is only changed if the text differs from the current title.
+     * <p>
+     * Use {@link #requestApplicationTitleUpdate()} to schedule an update instead of calling this method directly.
      */
     protected void updateApplicationTitle() {
-        StringBuilder title = new StringBuilder();
-        title.append(i18n.get(FX_APPLICATION_NAME));
+        String name = applicationName;
+        String untitled = untitledText;
+        if (name == null || untitled == null) {
+            name = i18n.get(FX_APPLICATION_NAME);
+            untitled = i18n.get("fx.application.text.untitled");
+            applicationName = name;
+            untitledText = untitled;
+        }
+
+        StringBuilder title = new StringBuilder(64);
+        title.append(name);
 
         FxDocument document = getController().getCurrentDocument().orElse(null);
 
         if (document != null) {
-            String locStr = document.hasLocation() ?
-                    asText(document.getLocation()) :
-                    i18n.get("fx.application.text.untitled");
+            String locStr = document.hasLocation() ? document.getLocationText() : untitled;
             boolean dirty = document.isDirty();
 
-            if (!locStr.isEmpty() || document.isDirty()) {
+            if (!locStr.isEmpty() || dirty) {
                 title.append(" - ");
             }
 
@@ -335,7 +862,10 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
         }
 
         if (mainStage != null) {
-            mainStage.setTitle(title.toString());
+            String text = title.toString();
+            if (!text.equals(mainStage.getTitle())) {
+                mainStage.setTitle(text);
+            }
         }
     }
 
@@ -357,6 +887,11 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
                 LOG.warn("error in cleanup task", e);
             }
         });
+
+        PreferenceCache cache = preferenceCache;
+        if (cache != null && !cache.close(PREFERENCES_WRITE_TIMEOUT)) {
+            LOG.warn("not all preference changes could be written");
+        }
     }
 
     /**
@@ -365,12 +900,9 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      * Don't ask the user if he wants to save his work first - this should be handled by the controller.
      */
     public void closeApplicationWindow() {
-        if (hasPreferences()) {
-            try {
-                getPreferences().flush();
-            } catch (BackingStoreException e) {
-                LOG.warn("could not update preferences", e);
-            }
+        PreferenceCache cache = preferenceCache;
+        if (cache != null && !cache.flush(PREFERENCES_WRITE_TIMEOUT)) {
+            LOG.warn("not all preference changes could be written");
         }
 
         if (mainStage != null) {
@@ -405,6 +937,32 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
         return preferences;
     }
 
+    /**
+     * Get the cache for this application's preferences.
+     * <p>
+     * Reads are served from memory and writes are written to the backing store in the background. Use this instead of
+     * accessing the {@link Preferences} instance directly to avoid blocking the calling thread on I/O.
+     *
+     * @return the preference cache
+     */
+    public final PreferenceCache getPreferenceCache() {
+        Preferences node = getPreferences();
+        PreferenceCache cache = preferenceCache;
+        if (cache == null || cache.getNode() != node) {
+            synchronized (this) {
+                cache = preferenceCache;
+                if (cache == null || cache.getNode() != node) {
+                    if (cache != null) {
+                        cache.close(PREFERENCES_WRITE_TIMEOUT);
+                    }
+                    cache = new PreferenceCache(node);
+                    preferenceCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     /**
      * Get the stage.
      *
@@ -415,9 +973,31 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
         return mainStage;
     }
 
-    private Path initApplicationDataDir() {
+    /**
+     * Determine and create this application's data folder. Called on a background thread when the data folder is
+     * first requested.
+     * <p>
+     * The default implementation uses the platform's standard location for application data, falling back to a
+     * folder in the user's home directory. Note that {@link SingleInstance#forwardToRunningInstance(Class, String...)}
+     * always uses the default location.
+     *
+     * @return the data folder
+     * @throws UncheckedIOException if the folder could not be created
+     */
+    protected Path createDataDir() {
+        return resolveDataDir(getClass());
+    }
+
+    /**
+     * Determine and create the data folder for an application class.
+     *
+     * @param appClass the application class
+     * @return the data folder
+     * @throws UncheckedIOException if the folder could not be created
+     */
+    static Path resolveDataDir(Class<?> appClass) {
         try {
-            String dirName = getClass().getName();
+            String dirName = appClass.getName();
             Path home = IoUtil.getUserHome();
 
             switch (Platform.currentPlatform()) {
@@ -460,11 +1040,49 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
 
     /**
      * Get this applications data folder.
+     * <p>
+     * The folder is resolved and created on first use, and the result is cached. If resolution has been started
+     * asynchronously, this method waits for it to complete.
      *
      * @return the data folder for this application
+     * @throws UncheckedIOException if the folder could not be created
+     * @see #getDataDirAsync()
      */
     public Path getDataDir() {
-        return dataDir;
+        try {
+            return getDataDirAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException uioe) {
+                throw uioe;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get this applications data folder asynchronously.
+     * <p>
+     * The first call starts resolving and creating the folder on a background thread. Later calls return the same
+     * future, unless resolution failed, in which case it is retried.
+     *
+     * @return a future that completes with the data folder for this application
+     */
+    public CompletableFuture<Path> getDataDirAsync() {
+        CompletableFuture<Path> dir = dataDir;
+        if (dir == null || dir.isCompletedExceptionally()) {
+            synchronized (this) {
+                dir = dataDir;
+                if (dir == null || dir.isCompletedExceptionally()) {
+                    dir = CompletableFuture.supplyAsync(() -> {
+                        try (var phase = startupTimeline.phase("dataDir")) {
+                            return createDataDir();
+                        }
+                    }, task -> Thread.ofVirtual().name("fx-data-dir").start(task));
+                    dataDir = dir;
+                }
+            }
+        }
+        return dir;
     }
 
     /**
@@ -516,7 +1134,7 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      * @param value the value
      */
     public void setPreference(String key, String value) {
-        getPreferences().put(key, value);
+        getPreferenceCache().put(key, value);
     }
 
     /**
@@ -527,7 +1145,161 @@ public abstract class FxApplication<A extends FxApplication<A, C>, C extends FxC
      * @return the value stored in the preferences for this key if present, or the default value
      */
     public String getPreference(String key, String def) {
-        return hasPreferences() ? getPreferences().get(key, def) : def;
+        return hasPreferences() ? getPreferenceCache().get(key, def) : def;
+    }
+
+    /**
+     * Set int preference value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void setPreference(String key, int value) {
+        getPreferenceCache().putInt(key, value);
+    }
+
+    /**
+     * Get the int preference value.
+     *
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public int getPreference(String key, int def) {
+        return hasPreferences() ? getPreferenceCache().getInt(key, def) : def;
+    }
+
+    /**
+     * Set long preference value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void setPreference(String key, long value) {
+        getPreferenceCache().putLong(key, value);
+    }
+
+    /**
+     * Get the long preference value.
+     *
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public long getPreference(String key, long def) {
+        return hasPreferences() ? getPreferenceCache().getLong(key, def) : def;
+    }
+
+    /**
+     * Set double preference value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void setPreference(String key, double value) {
+        getPreferenceCache().putDouble(key, value);
+    }
+
+    /**
+     * Get the double preference value.
+     *
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public double getPreference(String key, double def) {
+        return hasPreferences() ? getPreferenceCache().getDouble(key, def) : def;
+    }
+
+    /**
+     * Set boolean preference value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void setPreference(String key, boolean value) {
+        getPreferenceCache().putBoolean(key, value);
+    }
+
+    /**
+     * Get the boolean preference value.
+     *
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public boolean getPreference(String key, boolean def) {
+        return hasPreferences() ? getPreferenceCache().getBoolean(key, def) : def;
+    }
+
+    /**
+     * Set byte array preference value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void setPreference(String key, byte[] value) {
+        getPreferenceCache().putByteArray(key, value);
+    }
+
+    /**
+     * Get the byte array preference value.
+     *
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public byte @Nullable [] getPreference(String key, byte @Nullable [] def) {
+        return hasPreferences() ? getPreferenceCache().getByteArray(key, def) : def;
+    }
+
+    /**
+     * Set enum preference value.
+     *
+     * @param <E>   the enum type
+     * @param key   the key
+     * @param value the value
+     */
+    public <E extends Enum<E>> void setPreference(String key, E value) {
+        getPreferenceCache().putEnum(key, value);
+    }
+
+    /**
+     * Get the enum preference value.
+     *
+     * @param <E> the enum type
+     * @param key the preference key
+     * @param def the default value
+     * @return the value stored in the preferences for this key if present and valid, or the default value
+     */
+    public <E extends Enum<E>> E getPreference(String key, E def) {
+        return hasPreferences() ? getPreferenceCache().getEnum(key, def.getDeclaringClass(), def) : def;
+    }
+
+    /**
+     * Set record preference value.
+     *
+     * @param <R>   the record type
+     * @param key   the key
+     * @param value the value
+     * @see PreferenceCache#putRecord(String, Record)
+     */
+    public <R extends Record> void setPreference(String key, R value) {
+        getPreferenceCache().putRecord(key, value);
+    }
+
+    /**
+     * Get the record preference value.
+     *
+     * @param <R> the record type
+     * @param key the preference key
+     * @param def the default value, also used for components that are not present
+     * @return the value stored in the preferences for this key
+     * @see PreferenceCache#getRecord(String, Class, Record)
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Record> R getPreference(String key, R def) {
+        return hasPreferences() ? getPreferenceCache().getRecord(key, (Class<R>) def.getClass(), def) : def;
     }
 
     /**
@@ -0,0 +1,146 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches items from background threads to the JavaFX Application Thread in batches.
+ * <p>
+ * Producers call {@link #dispatch(Object)} from any thread; the item is added to a lock-free queue. On the JavaFX
+ * Application Thread, the queue is drained once per pulse, and the handler is called with at most
+ * {@code maxBatchSize} items at a time. Items that do not fit into the current batch are handled in the following
+ * pulses, so that the UI stays responsive even when producers outpace the UI. Items are handled in the order they were
+ * dispatched by each producer.
+ * <p>
+ * While the queue is empty, no pulse listener is active.
+ *
+ * @param <T> the item type
+ */
+public final class FxBatchDispatcher<T> {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(FxBatchDispatcher.class);
+
+    /**
+     * The default maximum number of items handled per pulse.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    private final Consumer<? super List<T>> handler;
+    private final int maxBatchSize;
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean active = new AtomicBoolean(false);
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drain();
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param handler      the handler, called on the JavaFX Application Thread with each batch of items
+     * @param maxBatchSize the maximum number of items passed to the handler per pulse
+     */
+    public FxBatchDispatcher(Consumer<? super List<T>> handler, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1: " + maxBatchSize);
+        }
+
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Create a dispatcher that runs actions on the JavaFX Application Thread, at most
+     * {@link #DEFAULT_MAX_BATCH_SIZE} per pulse.
+     * <p>
+     * An exception thrown by an action is logged and does not prevent the remaining actions from running.
+     *
+     * @return new dispatcher for actions
+     */
+    public static FxBatchDispatcher<Runnable> forActions() {
+        return new FxBatchDispatcher<>(actions -> actions.forEach(action -> {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                LOG.warn("uncaught exception in dispatched action", e);
+            }
+        }), DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Dispatch an item to the JavaFX Application Thread. This method can be called from any thread.
+     *
+     * @param item the item
+     */
+    public void dispatch(T item) {
+        queue.add(item);
+        if (active.compareAndSet(false, true)) {
+            Platform.runLater(timer::start);
+        }
+    }
+
+    /**
+     * Get the number of items waiting to be handled.
+     *
+     * @return the number of queued items
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Handle the next batch of items. Runs on the JavaFX Application Thread once per pulse.
+     */
+    void drain() {
+        List<T> batch = new ArrayList<>(Math.min(maxBatchSize, 64));
+        T item;
+        while (batch.size() < maxBatchSize && (item = queue.poll()) != null) {
+            batch.add(item);
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                handler.accept(batch);
+            } catch (RuntimeException e) {
+                LOG.warn("uncaught exception in batch handler", e);
+            }
+        }
+
+        if (queue.isEmpty()) {
+            // stop listening to pulses; re-check because a producer might have added an item before the flag was reset
+            timer.stop();
+            active.set(false);
+            if (!queue.isEmpty() && active.compareAndSet(false, true)) {
+                timer.start();
+            }
+        }
+    }
+}
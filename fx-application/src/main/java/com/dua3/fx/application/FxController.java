@@ -14,9 +14,11 @@
 
 package com.dua3.fx.application;
 
+import com.dua3.utility.fx.controls.AlertBuilder;
 import com.dua3.utility.fx.controls.Dialogs;
 import com.dua3.utility.i18n.I18N;
 import com.dua3.utility.lang.LangUtil;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
@@ -33,13 +35,25 @@ import org.jspecify.annotations.Nullable;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Abstract controller class for handling JavaFX applications with documents.
@@ -61,7 +75,16 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
      */
     protected static final String PREF_DOCUMENT = "document_uri";
     /**
-     * The list of current tasks.
+     * Executor that runs actions on the JavaFX Application Thread.
+     */
+    private static final Executor FX_EXECUTOR = Platform::runLater;
+    /**
+     * The maximum number of documents listed in the error dialog of {@link #loadAll(List)}.
+     */
+    private static final int MAX_LISTED_FAILURES = 20;
+    /**
+     * The list of current tasks. Tasks submitted through {@link #getTaskExecutor()} are added and removed
+     * automatically.
      */
     protected final ObservableList<Task<?>> tasks = FXCollections.observableArrayList();
     /**
@@ -79,6 +102,59 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
      */
     private @Nullable A app;
 
+    /**
+     * The executor for background tasks; created on first use.
+     */
+    private @Nullable TaskExecutor taskExecutor;
+
+    /**
+     * The dispatcher for UI updates from background threads, created on first use. The field is volatile so that
+     * {@link #dispatchToFxThread(Runnable)} does not need to lock once the dispatcher has been created.
+     */
+    private volatile @Nullable FxBatchDispatcher<Runnable> uiDispatcher;
+
+    /**
+     * The queue for documents passed to the application from outside, created on first use.
+     */
+    private @Nullable DocumentIngestQueue ingestQueue;
+
+    /**
+     * The cache for the initial folder of file dialogs.
+     */
+    private final DirectoryCache directoryCache = new DirectoryCache(FxApplication::getUserHome, Duration.ofSeconds(30));
+
+    /**
+     * Flag indicating whether documents are loaded in the background.
+     */
+    private boolean asyncOpen = false;
+
+    /**
+     * The save operations that are currently in progress.
+     */
+    private final Set<CompletableFuture<Boolean>> pendingSaves = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The autosave service, if autosave is enabled.
+     */
+    private @Nullable AutosaveService autosaveService;
+
+    /**
+     * The recovery journal, if recovery is enabled.
+     */
+    private @Nullable RecoveryJournal recoveryJournal;
+
+    /**
+     * Documents found in the recovery journal that have not yet been offered to the user; the journal directory is
+     * scanned in the background.
+     */
+    private CompletableFuture<List<RecoveryJournal.RecoveredDocument>> recoveredDocuments =
+            CompletableFuture.completedFuture(List.of());
+
+    /**
+     * The recently used documents, if enabled.
+     */
+    private @Nullable RecentDocuments recentDocuments;
+
     /**
      * The Default constructor. Just declared here to reduce visibility.
      */
@@ -94,15 +170,31 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
 
     /**
      * Request application close as if the close-window-button was clicked.
+     * <p>
+     * If save operations are in progress, the application window is closed after these have completed. Documents
+     * that the user chooses to save when asked about unsaved changes are saved in the background.
      */
     public void closeApplicationWindow() {
-        // handle dirty state
-        if (!handleDirtyState()) {
-            LOG.debug("close aborted because of dirty state");
-            return;
-        }
-        assert app != null;
-        app.closeApplicationWindow();
+        awaitPendingSaves()
+                .thenCompose(v -> handleDirtyStateAsync())
+                .thenAccept(goOn -> {
+                    // handle dirty state
+                    if (!goOn) {
+                        LOG.debug("close aborted because of dirty state");
+                        return;
+                    }
+                    assert app != null;
+                    app.closeApplicationWindow();
+                });
+    }
+
+    /**
+     * Get a future that completes when all save operations that are currently in progress have completed.
+     *
+     * @return future that completes when pending save operations are done
+     */
+    protected CompletableFuture<Void> awaitPendingSaves() {
+        return CompletableFuture.allOf(pendingSaves.toArray(CompletableFuture[]::new));
     }
 
     /**
@@ -113,18 +205,43 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
      *     <li> Do not save the current document
      *     <li> Cancel
      * </ul>
-     * If the user selects "save", the current document is saved before the method returns.
+     * If the user selects "save", the document shown in the dialog is saved before the method returns. This need not
+     * be the current document.
      *
      * @return true, if either "save" (in which case the document is automatically saved) or "don't save are selected
      * false, if the dialog was canceled
      */
     protected boolean handleDirtyState() {
-        boolean rc = true;
+        return handleDirtyState(doc -> CompletableFuture.completedFuture(save(doc))).join();
+    }
+
+    /**
+     * Called before a new document is created or opened. The default implementation calls
+     * {@link #handleDirtyState()}, as the new document replaces the current one. Controllers that keep multiple
+     * documents open override this method.
+     *
+     * @return true, if the operation should continue, false if it should be aborted
+     */
+    protected boolean confirmReplaceCurrentDocument() {
+        return handleDirtyState();
+    }
+
+    /**
+     * Check for changes like {@link #handleDirtyState()}, but save the document in the background if the user
+     * selects "save".
+     *
+     * @return a future that completes with true if either "save" (in which case the document is saved) or "don't save"
+     * are selected, and false if the dialog was canceled or saving failed
+     */
+    protected CompletableFuture<Boolean> handleDirtyStateAsync() {
+        return handleDirtyState(this::saveAsync);
+    }
+
+    private CompletableFuture<Boolean> handleDirtyState(Function<? super D, CompletableFuture<Boolean>> saveAction) {
         List<? extends D> dirtyList = dirtyDocuments();
 
-        AtomicBoolean goOn = new AtomicBoolean(false);
-        switch (dirtyList.size()) {
-            case 0 -> goOn.set(true);
+        return switch (dirtyList.size()) {
+            case 0 -> CompletableFuture.completedFuture(true);
             case 1 -> {
                 D doc = dirtyList.getFirst();
 
@@ -138,38 +255,54 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
                 ButtonType bttSave = new ButtonType(i18n.get("fx.application.button.save"), ButtonBar.ButtonData.YES);
                 ButtonType bttDontSave = new ButtonType(i18n.get("fx.application.button.no.save"), ButtonBar.ButtonData.NO);
 
-                Dialogs.alert(getApp().getStage(), AlertType.CONFIRMATION)
-                        .header(header)
-                        .text(i18n.get("fx.application.message.changes_will_be_lost"))
-                        .buttons(bttDontSave, bttSave, ButtonType.CANCEL)
-                        .showAndWait()
-                        .ifPresent(btn -> {
-                            if (btn == bttSave) {
-                                goOn.set(save()); // only continue if save was successful
-                            }
-                            if (btn == bttDontSave) {
-                                goOn.set(true);   // don't save, just go on
-                            }
-                        });
+                ButtonType btn = showConfirmationDialog(
+                        header,
+                        i18n.get("fx.application.message.changes_will_be_lost"),
+                        null,
+                        bttDontSave, bttSave, ButtonType.CANCEL
+                );
+
+                if (btn == bttSave) {
+                    yield saveAction.apply(doc); // only continue if save was successful
+                }
+                yield CompletableFuture.completedFuture(btn == bttDontSave); // don't save, just go on
             }
             default -> {
                 String header = i18n.format("fx.application.message.unsaved.changes.multiple.documents", String.valueOf(dirtyList.size()));
 
-                Dialogs.alert(getApp().getStage(), AlertType.CONFIRMATION)
-                        .header(header)
-                        .text(i18n.get("fx.application.message.continue_without_saving"))
-                        .buttons(ButtonType.YES, ButtonType.CANCEL)
-                        .defaultButton(ButtonType.CANCEL)
-                        .showAndWait()
-                        .ifPresent(btn -> goOn.set(btn == ButtonType.YES)); // only continue if "YES" was clicked
+                boolean goOn = showConfirmationDialog(
+                        header,
+                        i18n.get("fx.application.message.continue_without_saving"),
+                        ButtonType.CANCEL,
+                        ButtonType.YES, ButtonType.CANCEL
+                ) == ButtonType.YES; // only continue if "YES" was clicked
+                yield CompletableFuture.completedFuture(goOn);
             }
-        }
+        };
+    }
 
-        if (!dirtyList.isEmpty()) {
-            rc = goOn.get();
+    /**
+     * Show a confirmation dialog and wait for the user's answer.
+     * <p>
+     * All confirmations of this controller are shown through this method. Subclasses can override it, e.g., to
+     * customize the dialogs or to answer without user interaction.
+     *
+     * @param header        the dialog header
+     * @param text          the dialog text
+     * @param defaultButton the default button, or {@code null} to use the dialog's default
+     * @param buttons       the buttons to show
+     * @return the button selected by the user, or {@link ButtonType#CANCEL} if the dialog was closed without a
+     * selection
+     */
+    protected ButtonType showConfirmationDialog(String header, String text, @Nullable ButtonType defaultButton, ButtonType... buttons) {
+        AlertBuilder builder = Dialogs.alert(getApp().getStage(), AlertType.CONFIRMATION)
+                .header("%s", header)
+                .text("%s", text)
+                .buttons(buttons);
+        if (defaultButton != null) {
+            builder.defaultButton(defaultButton);
         }
-
-        return rc;
+        return builder.showAndWait().orElse(ButtonType.CANCEL);
     }
 
     /**
@@ -201,8 +334,8 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
     }
 
     /**
-     * Called when the location of the main document changes. Updates the last document in the preferences.
-     * Implementing classes can override this method to implement a recently used documents list.
+     * Called when the location of the main document changes. Updates the last document in the preferences and adds
+     * the document to the recently used documents if {@link #enableRecentDocuments(int)} has been called.
      *
      * @param uri the document's URI
      */
@@ -212,6 +345,15 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
         }
 
         getApp().setPreferenceOptional(PREF_DOCUMENT, uri.toString());
+        getRecentDocuments().ifPresent(recent -> recent.add(uri));
+
+        // check the folder now so that it can be used by the next file dialog without blocking
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            Path parent = Paths.get(uri).getParent();
+            if (parent != null) {
+                directoryCache.refresh(parent);
+            }
+        }
     }
 
     /**
@@ -229,7 +371,7 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
      */
     public boolean newDocument() {
         // handle dirty state
-        if (!handleDirtyState()) {
+        if (!confirmReplaceCurrentDocument()) {
             LOG.debug("new aborted because of dirty state");
             return false;
         }
@@ -248,27 +390,26 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
     /**
      * Opens a file dialog to allow the user to select a file to open.
      * <p>
-     * The method first handles any unsaved changes by calling `handleDirtyState()`.
+     * The method first handles any unsaved changes by calling {@link #confirmReplaceCurrentDocument()}.
      * If there are unsaved changes and the user chooses to cancel, the open operation is aborted.
      * Otherwise, it attempts to determine an initial directory for the file chooser dialog based on the current document.
      * If no directory is found, the user's home directory is used. The file chooser dialog is then displayed to the user.
      * If the user selects a file, the document is opened.
+     * <p>
+     * If asynchronous opening is enabled (see {@link #setAsyncOpen(boolean)}), the document is loaded in the background
+     * and this method returns as soon as loading has been started.
      *
-     * @return true if a file was successfully selected and opened, false otherwise
+     * @return true if a file was successfully selected and opened (or loading was started), false otherwise
      */
     public boolean open() {
         // handle dirty state
-        if (!handleDirtyState()) {
+        if (!confirmReplaceCurrentDocument()) {
             LOG.debug("open aborted because of dirty state");
             return false;
         }
 
         Path initialDir = initialDir(getCurrentDocument().orElse(null));
 
-        if (!Files.isDirectory(initialDir)) {
-            initialDir = FxApplication.getUserHome();
-        }
-
         Optional<Path> file = Dialogs
                 .chooseFile(getApp().getStage())
                 .initialDir(initialDir)
@@ -283,7 +424,277 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
         }
 
         // open the document and handle errors
-        return open(file.get().toUri());
+        URI uri = file.get().toUri();
+        if (isAsyncOpen()) {
+            openAsync(uri);
+            return true;
+        }
+        return open(uri);
+    }
+
+    /**
+     * Show a file dialog that allows selecting multiple files and open the selected files using
+     * {@link #openAll(List)}.
+     * <p>
+     * Unsaved changes are handled by {@link #documentsOpened(List)} when the documents have been loaded.
+     *
+     * @return true if files were selected and loading was started, false otherwise
+     */
+    public boolean openMultiple() {
+        Path initialDir = initialDir(getCurrentDocument().orElse(null));
+
+        List<Path> files = Dialogs
+                .chooseFile(getApp().getStage())
+                .initialDir(initialDir)
+                .initialFileName("")
+                .filter(openFilters())
+                .selectedFilter(selectedOpenFilter())
+                .showOpenMultipleDialog();
+
+        if (files.isEmpty()) {
+            LOG.debug("openMultiple(): no file was chosen");
+            return false;
+        }
+
+        openAll(files.stream().map(Path::toUri).toList());
+        return true;
+    }
+
+    /**
+     * Open documents in the background.
+     * <p>
+     * As this controller manages a single document, only the last document is loaded using
+     * {@link #loadAll(List)}.
+     *
+     * @param uris the URIs of the documents to open
+     * @return a future that completes with the loaded document, or an empty list if the document could not be
+     *         loaded, after {@link #documentsOpened(List)} has been called
+     */
+    public CompletableFuture<List<D>> openAll(List<URI> uris) {
+        return uris.isEmpty() ? CompletableFuture.completedFuture(List.of()) : loadAll(List.of(uris.getLast()));
+    }
+
+    /**
+     * Load multiple documents in the background.
+     * <p>
+     * Documents are loaded by calling {@link #loadDocument(URI)} on the executor returned by
+     * {@link #getTaskExecutor()} with bulk priority, with at most {@link #getMaxParallelLoads()} documents loading at
+     * the same time. When all documents have been processed, the successfully loaded documents are passed to
+     * {@link #documentsOpened(List)} and the documents that could not be loaded are reported in a single dialog on
+     * the JavaFX Application Thread.
+     * <p>
+     * All loaded documents are kept in memory until the last document has been processed. The peak memory use is
+     * therefore the size of all documents passed to this method in addition to the documents already open; callers
+     * that open many documents should pass them in batches like the {@link #getIngestQueue() ingest queue} does.
+     *
+     * @param uris the URIs of the documents to load; duplicates are ignored
+     * @return a future that completes with the loaded documents in the order of the URIs after
+     *         {@link #documentsOpened(List)} has been called
+     */
+    protected final CompletableFuture<List<D>> loadAll(List<URI> uris) {
+        List<URI> distinct = uris.stream().distinct().toList();
+        CompletableFuture<List<D>> result = new CompletableFuture<>();
+        if (distinct.isEmpty()) {
+            result.complete(List.of());
+            return result;
+        }
+
+        BulkLoad load = new BulkLoad(distinct, result);
+        int lanes = Math.min(Math.max(1, getMaxParallelLoads()), distinct.size());
+        for (int i = 0; i < lanes; i++) {
+            load.startNext();
+        }
+        return result;
+    }
+
+    /**
+     * Get the queue for documents passed to the application from outside, e.g., on the command line or by drag and
+     * drop.
+     * <p>
+     * Queued documents are opened in batches of {@link DocumentIngestQueue#DEFAULT_BATCH_SIZE} using
+     * {@link #openAll(List)}; the next batch is started when the previous batch has been opened. Unsaved changes are
+     * handled by {@link #documentsOpened(List)} when a batch has been loaded.
+     *
+     * @return the ingest queue
+     */
+    public synchronized DocumentIngestQueue getIngestQueue() {
+        if (ingestQueue == null) {
+            ingestQueue = new DocumentIngestQueue(this::openAll, DocumentIngestQueue.DEFAULT_BATCH_SIZE);
+        }
+        return ingestQueue;
+    }
+
+    /**
+     * Get the maximum number of documents that {@link #loadAll(List)} loads at the same time.
+     * <p>
+     * The default implementation returns the number of available processors. Override to limit the load on slow
+     * storage.
+     *
+     * @return the maximum number of parallel loads
+     */
+    protected int getMaxParallelLoads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Called on the JavaFX Application Thread when {@link #loadAll(List)} has loaded documents.
+     * <p>
+     * As this controller manages a single document, the default implementation calls
+     * {@link #confirmReplaceCurrentDocument()} and makes the last document the current document unless the user
+     * cancels.
+     *
+     * @param documents the loaded documents, in the order they were requested; never empty
+     */
+    protected void documentsOpened(List<D> documents) {
+        if (!confirmReplaceCurrentDocument()) {
+            LOG.debug("opening {} aborted because of dirty state", documents.getLast().getLocation());
+            return;
+        }
+        setCurrentDocument(documents.getLast());
+    }
+
+    /**
+     * Called on the loading thread when {@link #loadAll(List)} has loaded a document, before the document is passed
+     * to {@link #documentsOpened(List)}.
+     *
+     * @param document the loaded document
+     */
+    void documentLoaded(D document) {
+        // nothing to do
+    }
+
+    /**
+     * Show a single error dialog for documents that could not be opened.
+     *
+     * @param failures the locations of the documents that could not be opened and the corresponding exceptions,
+     *                 in the order the documents were requested
+     */
+    protected void showOpenDocumentsError(Map<URI, Throwable> failures) {
+        if (failures.size() == 1) {
+            Map.Entry<URI, Throwable> failure = failures.entrySet().iterator().next();
+            showOpenDocumentError(failure.getKey(), failure.getValue());
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        int n = 0;
+        for (Map.Entry<URI, Throwable> failure : failures.entrySet()) {
+            if (n++ == MAX_LISTED_FAILURES) {
+                text.append(i18n.format("fx.application.message.more.{0.count}", String.valueOf(failures.size() - MAX_LISTED_FAILURES)));
+                break;
+            }
+            text.append(FxApplication.asText(failure.getKey()))
+                    .append(": ")
+                    .append(failure.getValue().getLocalizedMessage())
+                    .append('\n');
+        }
+
+        getApp().showErrorDialog(
+                i18n.format("fx.application.dialog.error.open.documents.{0.count}", String.valueOf(failures.size())),
+                text.toString().strip()
+        );
+    }
+
+    /**
+     * The state of a {@link #loadAll(List)} operation.
+     */
+    private final class BulkLoad {
+        private final List<URI> uris;
+        private final CompletableFuture<List<D>> result;
+        private final AtomicReferenceArray<@Nullable D> documents;
+        private final AtomicReferenceArray<@Nullable Throwable> errors;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final Executor executor = getTaskExecutor().executor(TaskExecutor.Priority.BULK);
+
+        BulkLoad(List<URI> uris, CompletableFuture<List<D>> result) {
+            this.uris = uris;
+            this.result = result;
+            this.documents = new AtomicReferenceArray<>(uris.size());
+            this.errors = new AtomicReferenceArray<>(uris.size());
+            this.remaining = new AtomicInteger(uris.size());
+        }
+
+        /**
+         * Claim the next URI and load it in the background. When loading is done, the next URI is claimed, so that
+         * the number of parallel loads never exceeds the number of calls from {@link #loadAll(List)}. If the executor
+         * rejects the work, all URIs that have not been claimed yet are marked as failed.
+         */
+        void startNext() {
+            int i = next.getAndIncrement();
+            if (i >= uris.size()) {
+                return;
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        load(i);
+                    } finally {
+                        startNext();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.warn("could not start loading documents", e);
+                fail(i, e);
+                for (int j = next.getAndSet(uris.size()); j < uris.size(); j++) {
+                    fail(j, e);
+                }
+            }
+        }
+
+        private void load(int i) {
+            URI uri = uris.get(i);
+            try {
+                D document = loadDocument(uri);
+                documentLoaded(document);
+                documents.set(i, document);
+            } catch (Throwable e) {
+                LOG.warn("error opening document: {}", uri, e);
+                errors.set(i, e);
+            } finally {
+                done();
+            }
+        }
+
+        private void fail(int i, Throwable e) {
+            errors.set(i, e);
+            done();
+        }
+
+        private void done() {
+            if (remaining.decrementAndGet() == 0) {
+                Platform.runLater(this::finish);
+            }
+        }
+
+        private void finish() {
+            List<D> loaded = new ArrayList<>(uris.size());
+            Map<URI, Throwable> failures = new LinkedHashMap<>();
+            for (int i = 0; i < uris.size(); i++) {
+                D document = documents.get(i);
+                Throwable error = errors.get(i);
+                if (document != null) {
+                    loaded.add(document);
+                } else if (error != null) {
+                    failures.put(uris.get(i), error);
+                }
+            }
+            LOG.debug("opened {} documents, {} failed", loaded.size(), failures.size());
+
+            try {
+                if (!loaded.isEmpty()) {
+                    documentsOpened(loaded);
+                }
+                if (!failures.isEmpty()) {
+                    showOpenDocumentsError(failures);
+                }
+                result.complete(List.copyOf(loaded));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
     }
 
     /**
@@ -298,11 +709,376 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
             return true;
         } catch (Exception e) {
             LOG.warn("error opening document", e);
+            showOpenDocumentError(uri, e);
+            return false;
+        }
+    }
+
+    /**
+     * Opens a document from the specified URI in the background.
+     * <p>
+     * The document is loaded by calling {@link #loadDocument(URI)} on the executor returned by
+     * {@link #getTaskExecutor()} with UI priority. While loading, the task is contained in {@link #tasks} so that
+     * progress can be displayed and the operation can be cancelled by calling {@link Task#cancel()}. When loading
+     * finishes, the document is set as the current document on the JavaFX Application Thread. A cancelled task does
+     * not change the current document.
+     * <p>
+     * This method must be called on the JavaFX Application Thread.
+     *
+     * @param uri the URI from which to open the document
+     * @return the task that loads the document
+     */
+    protected Task<D> openAsync(URI uri) {
+        Task<D> task = new Task<>() {
+            @Override
+            protected D call() throws Exception {
+                updateTitle(FxApplication.asText(uri));
+                updateProgress(-1, 1);
+                D document = loadDocument(uri);
+                updateProgress(1, 1);
+                return document;
+            }
+        };
+
+        task.setOnSucceeded(evt -> setCurrentDocument(task.getValue()));
+        task.setOnFailed(evt -> {
+            Throwable e = task.getException();
+            LOG.warn("error opening document", e);
+            showOpenDocumentError(uri, e);
+        });
+        task.setOnCancelled(evt -> LOG.debug("opening document was cancelled: {}", uri));
+
+        return getTaskExecutor().submit(task, TaskExecutor.Priority.UI);
+    }
+
+    /**
+     * Show an error dialog for a document that could not be opened.
+     *
+     * @param uri the URI of the document
+     * @param e   the exception that occurred, or {@code null}
+     */
+    protected void showOpenDocumentError(URI uri, @Nullable Throwable e) {
+        getApp().showErrorDialog(
+                i18n.format("fx.application.dialog.error.open.document.{0.name}", FxApplication.asText(uri)),
+                e == null ? "" : String.valueOf(e.getLocalizedMessage())
+        );
+    }
+
+    /**
+     * Check whether documents selected in {@link #open()} are loaded in the background.
+     *
+     * @return true, if documents are loaded asynchronously
+     */
+    public boolean isAsyncOpen() {
+        return asyncOpen;
+    }
+
+    /**
+     * Enable or disable asynchronous loading of documents selected in {@link #open()}.
+     *
+     * @param asyncOpen true, to load documents in the background
+     */
+    public void setAsyncOpen(boolean asyncOpen) {
+        this.asyncOpen = asyncOpen;
+    }
+
+    /**
+     * Enable automatic saving of snapshots of open documents.
+     * <p>
+     * Snapshots are written to the directory {@code autosave} inside the application's data directory and removed
+     * when the document is saved or closed. The service is shut down when the application stops. Snapshots left over
+     * by a previous run are available through {@link AutosaveService#getLeftoverSnapshots()}.
+     *
+     * @param interval  the interval for saving open documents that are dirty, {@link Duration#ZERO} to disable
+     * @param idleDelay the delay after the last change to a dirty document before a snapshot is written,
+     *                  {@link Duration#ZERO} to disable
+     * @return the autosave service
+     * @throws IllegalStateException if autosave has already been enabled
+     */
+    public AutosaveService enableAutosave(Duration interval, Duration idleDelay) {
+        LangUtil.check(autosaveService == null, "autosave is already enabled");
+
+        AutosaveService service = new AutosaveService(getApp().getDataDir().resolve("autosave"), interval, idleDelay);
+        autosaveService = service;
+        getApp().addCleanupAction(service::close);
+
+        trackOpenDocuments(service::watch, service::unwatch);
+
+        return service;
+    }
+
+    /**
+     * Get the autosave service.
+     *
+     * @return the autosave service, or an empty Optional if autosave has not been enabled
+     */
+    public Optional<AutosaveService> getAutosaveService() {
+        return Optional.ofNullable(autosaveService);
+    }
+
+    /**
+     * Enable journaling of changes to open documents, so that unsaved changes can be restored after the
+     * application terminated abnormally.
+     * <p>
+     * Documents record their changes using {@link FxDocument#recordChange(byte[])}. The journal is stored in the
+     * directory {@code recovery} inside the application's data directory. Changes found in the journal from a
+     * previous run are searched for in the background and offered to the user for restoring after the application
+     * window has been shown; to support this, {@link #restoreDocument(URI, List)} must be implemented. Call this method
+     * from {@link #init(FxApplication)}.
+     *
+     * @return the recovery journal
+     * @throws IllegalStateException if recovery has already been enabled
+     */
+    public RecoveryJournal enableRecovery() {
+        LangUtil.check(recoveryJournal == null, "recovery is already enabled");
+
+        Path dir = getApp().getDataDir().resolve("recovery");
+        recoveredDocuments = CompletableFuture.supplyAsync(() -> {
+            try {
+                List<RecoveryJournal.RecoveredDocument> recovered = RecoveryJournal.scan(dir);
+                LOG.debug("found {} documents in recovery journal", recovered.size());
+                return recovered;
+            } catch (IOException e) {
+                LOG.warn("could not read recovery journal", e);
+                return List.of();
+            }
+        }, r -> Thread.ofVirtual().name("fx-recovery-scan").start(r));
+
+        RecoveryJournal journal = new RecoveryJournal(dir);
+        recoveryJournal = journal;
+        getApp().addCleanupAction(journal::close);
+
+        trackOpenDocuments(journal::attach, journal::detach);
+
+        return journal;
+    }
+
+    /**
+     * Get the recovery journal.
+     *
+     * @return the recovery journal, or an empty Optional if recovery has not been enabled
+     */
+    public Optional<RecoveryJournal> getRecoveryJournal() {
+        return Optional.ofNullable(recoveryJournal);
+    }
+
+    /**
+     * Enable the list of recently used documents.
+     * <p>
+     * The list is stored in the file {@code recent-documents} inside the application's data directory. It is loaded
+     * in the background, and documents are added whenever the location of the current document changes. Bind
+     * {@link RecentDocuments#getEntries()} to the UI to show the list. Call this method from
+     * {@link #init(FxApplication)}.
+     *
+     * @param maxSize the maximum number of entries
+     * @return the recently used documents
+     * @throws IllegalStateException if the list has already been enabled
+     */
+    public RecentDocuments enableRecentDocuments(int maxSize) {
+        LangUtil.check(recentDocuments == null, "recent documents are already enabled");
+
+        RecentDocuments recent = new RecentDocuments(getApp().getDataDir().resolve("recent-documents"), maxSize);
+        recentDocuments = recent;
+        getApp().addCleanupAction(recent::close);
+
+        recent.load().exceptionally(e -> {
+            LOG.warn("could not load recent documents", e);
+            return null;
+        });
+
+        return recent;
+    }
+
+    /**
+     * Get the recently used documents.
+     *
+     * @return the recently used documents, or an empty Optional if the list has not been enabled
+     */
+    public Optional<RecentDocuments> getRecentDocuments() {
+        return Optional.ofNullable(recentDocuments);
+    }
+
+    /**
+     * Register actions to run when a document is opened or closed, i.e., when a document is loaded into memory and
+     * when the document is released. Actions are run on the JavaFX Application Thread.
+     * <p>
+     * The open action is run immediately for documents that are currently open. As this controller manages a single
+     * document, the default implementation treats the current document as the only open document.
+     *
+     * @param onOpen  the action to run when a document is opened
+     * @param onClose the action to run when a document is closed
+     */
+    protected void trackOpenDocuments(Consumer<? super D> onOpen, Consumer<? super D> onClose) {
+        getCurrentDocument().ifPresent(onOpen);
+        currentDocumentProperty.addListener((v, o, n) -> {
+            if (o != null) {
+                onClose.accept(o);
+            }
+            if (n != null) {
+                onOpen.accept(n);
+            }
+        });
+    }
+
+    /**
+     * Offer to restore documents found in the recovery journal. Called by the application after the application
+     * window has been shown. If the journal directory is still being scanned, the documents are offered on the JavaFX
+     * Application Thread when the scan has finished.
+     * <p>
+     * If the user cancels the dialog, the recovered changes are kept and offered again on the next start.
+     */
+    void offerRecovery() {
+        CompletableFuture<List<RecoveryJournal.RecoveredDocument>> scan = recoveredDocuments;
+        recoveredDocuments = CompletableFuture.completedFuture(List.of());
+        scan.thenAcceptAsync(this::offerRecovery, Platform::runLater);
+    }
+
+    private void offerRecovery(List<RecoveryJournal.RecoveredDocument> recovered) {
+        if (recovered.isEmpty()) {
+            return;
+        }
+
+        ButtonType bttRestore = new ButtonType(i18n.get("fx.application.button.restore"), ButtonBar.ButtonData.YES);
+        ButtonType bttDiscard = new ButtonType(i18n.get("fx.application.button.discard"), ButtonBar.ButtonData.NO);
+
+        ButtonType btn = showConfirmationDialog(
+                i18n.format("fx.application.message.recovery.{0.count}", String.valueOf(recovered.size())),
+                i18n.get("fx.application.message.recovery.restore"),
+                null,
+                bttDiscard, bttRestore, ButtonType.CANCEL
+        );
+
+        if (btn == bttRestore) {
+            restoreDocuments(recovered);
+        } else if (btn == bttDiscard) {
+            recovered.forEach(document -> {
+                try {
+                    RecoveryJournal.discard(document);
+                } catch (IOException e) {
+                    LOG.warn("could not discard recovered document {}", document.file(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restore documents found in the recovery journal.
+     * <p>
+     * As this controller manages a single document, the default implementation restores the document that was
+     * modified most recently and makes it the current document. The journals of other documents are kept and offered
+     * again on the next start. Controllers managing multiple documents should override this method.
+     *
+     * @param recovered the recovered documents, ordered by the time of the last recorded change
+     */
+    protected void restoreDocuments(List<RecoveryJournal.RecoveredDocument> recovered) {
+        restore(recovered.getLast()).ifPresent(this::setCurrentDocument);
+    }
+
+    /**
+     * Restore a single document from the recovery journal. The restored document is marked as dirty, and the
+     * recovered changes are transferred to the document's journal. If restoring fails, an error dialog is shown.
+     *
+     * @param recovered the recovered document
+     * @return the restored document, or an empty Optional if the document could not be restored
+     */
+    protected final Optional<D> restore(RecoveryJournal.RecoveredDocument recovered) {
+        try {
+            D document = restoreDocument(recovered.location(), recovered.changes());
+            document.dirtyProperty().set(true);
+            getRecoveryJournal().ifPresent(journal -> journal.restored(document, recovered));
+            return Optional.of(document);
+        } catch (Exception e) {
+            LOG.warn("error restoring document {}", recovered.location(), e);
             getApp().showErrorDialog(
-                    i18n.format("fx.application.dialog.error.open.document.{0.name}", FxApplication.asText(uri)),
+                    i18n.format("fx.application.dialog.error.restore.{0.name}", FxApplication.asText(recovered.location())),
                     String.valueOf(e.getLocalizedMessage())
             );
-            return false;
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the executor used to run background operations the user is waiting for, like saving documents.
+     * <p>
+     * The default implementation submits operations to the executor returned by {@link #getTaskExecutor()} with
+     * UI priority, so that they do not wait behind bulk work such as loading many documents.
+     *
+     * @return the executor for background operations
+     */
+    protected Executor getBackgroundExecutor() {
+        return getTaskExecutor().executor(TaskExecutor.Priority.UI);
+    }
+
+    /**
+     * Get the executor for background tasks.
+     * <p>
+     * The executor is created by calling {@link #createTaskExecutor()} on first use and shut down when the
+     * application stops. {@link Task}s submitted using {@link TaskExecutor#submit(Task, TaskExecutor.Priority)} are
+     * shown in {@link #tasks} while they are pending or running.
+     *
+     * @return the task executor
+     */
+    public synchronized TaskExecutor getTaskExecutor() {
+        if (taskExecutor == null) {
+            taskExecutor = createTaskExecutor();
+        }
+        return taskExecutor;
+    }
+
+    /**
+     * Get the aggregated progress of the work submitted to the task executor.
+     *
+     * @return the task progress
+     */
+    public TaskProgress getTaskProgress() {
+        return getTaskExecutor().getProgress();
+    }
+
+    /**
+     * Run an action on the JavaFX Application Thread.
+     * <p>
+     * Unlike {@link javafx.application.Platform#runLater(Runnable)}, actions are collected and run in bounded batches
+     * once per pulse, so that background work can push a high rate of updates to the UI without flooding the event
+     * queue. Actions passed to this method run in the order they were passed.
+     *
+     * @param action the action
+     */
+    public void dispatchToFxThread(Runnable action) {
+        FxBatchDispatcher<Runnable> dispatcher = uiDispatcher;
+        if (dispatcher == null) {
+            synchronized (this) {
+                dispatcher = uiDispatcher;
+                if (dispatcher == null) {
+                    dispatcher = FxBatchDispatcher.forActions();
+                    uiDispatcher = dispatcher;
+                }
+            }
+        }
+        dispatcher.dispatch(action);
+    }
+
+    /**
+     * Create the executor for background tasks.
+     * <p>
+     * The default implementation creates an executor that runs as many tasks in parallel as there are processors,
+     * using virtual threads. Override to change the configuration.
+     *
+     * @return new task executor
+     */
+    protected TaskExecutor createTaskExecutor() {
+        return new TaskExecutor(Runtime.getRuntime().availableProcessors(), true, tasks);
+    }
+
+    /**
+     * Shut down the task executor if it has been created.
+     */
+    private void closeTaskExecutor() {
+        TaskExecutor executor;
+        synchronized (this) {
+            executor = taskExecutor;
+        }
+        if (executor != null) {
+            executor.close();
         }
     }
 
@@ -335,9 +1111,13 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
             return false;
         }
 
+        return save(doc);
+    }
+
+    private boolean save(D doc) {
         if (!doc.hasLocation()) {
             LOG.debug("save: no URI set, delegating to saveAs()");
-            return saveAs();
+            return saveAs(doc);
         }
 
         return saveDocumentAndHandleErrors(doc);
@@ -347,6 +1127,33 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
         return saveDocumentAndHandleErrors(document, document.getLocation());
     }
 
+    /**
+     * Saves the current document in the background if it is available.
+     * If the document's location is not set, delegates to the `saveAsAsync()` method to prompt for a location.
+     * Errors are reported to the user on the JavaFX Application Thread.
+     *
+     * @return a future that completes with true if the document was successfully saved, false otherwise
+     */
+    public CompletableFuture<Boolean> saveAsync() {
+        D doc = getCurrentDocument().orElse(null);
+
+        if (doc == null) {
+            LOG.info("no document; not saving");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return saveAsync(doc);
+    }
+
+    private CompletableFuture<Boolean> saveAsync(D doc) {
+        if (!doc.hasLocation()) {
+            LOG.debug("saveAsync: no URI set, delegating to saveAsAsync()");
+            return saveAsAsync(doc);
+        }
+
+        return saveDocumentAsync(doc, doc.getLocation());
+    }
+
     /**
      * Retrieves a list of file extension filters to be used in an open file dialog.
      *
@@ -389,15 +1196,11 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
             return false;
         }
 
-        Path initialDir = initialDir(document);
+        return saveAs(document);
+    }
 
-        Optional<Path> file = Dialogs
-                .chooseFile(getApp().getStage())
-                .initialDir(initialDir)
-                .initialFileName("")
-                .filter(saveFilters())
-                .selectedFilter(selectedSaveFilter())
-                .showSaveDialog();
+    private boolean saveAs(D document) {
+        Optional<Path> file = chooseSaveFile(document);
 
         if (file.isEmpty()) {
             LOG.debug("saveAs(): no file was chosen");
@@ -407,22 +1210,74 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
         // save document content
         boolean rc = saveDocumentAndHandleErrors(document, file.get().toUri());
 
-        if (rc) {
+        if (rc && isCurrentDocument(document)) {
             setCurrentDocument(document);
         }
 
         return rc;
     }
 
+    /**
+     * Prompts the user with a "Save As" dialog like {@link #saveAs()}, but writes the document in the background.
+     *
+     * @return a future that completes with true if the document was successfully saved, false otherwise
+     */
+    public CompletableFuture<Boolean> saveAsAsync() {
+        D document = getCurrentDocument().orElse(null);
+
+        if (document == null) {
+            LOG.info("no document; not saving as new document");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return saveAsAsync(document);
+    }
+
+    private CompletableFuture<Boolean> saveAsAsync(D document) {
+        Optional<Path> file = chooseSaveFile(document);
+
+        if (file.isEmpty()) {
+            LOG.debug("saveAsAsync(): no file was chosen");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        // save document content
+        return saveDocumentAsync(document, file.get().toUri())
+                .thenApply(rc -> {
+                    if (rc && isCurrentDocument(document)) {
+                        setCurrentDocument(document);
+                    }
+                    return rc;
+                });
+    }
+
+    private boolean isCurrentDocument(D document) {
+        return getCurrentDocument().orElse(null) == document;
+    }
+
+    private Optional<Path> chooseSaveFile(D document) {
+        Path initialDir = initialDir(document);
+
+        return Dialogs
+                .chooseFile(getApp().getStage())
+                .initialDir(initialDir)
+                .initialFileName("")
+                .filter(saveFilters())
+                .selectedFilter(selectedSaveFilter())
+                .showSaveDialog();
+    }
+
     /**
      * Determine the parent folder to set for open/save dialogs.
+     * <p>
+     * This method does not access the file system. The folder is looked up in the directory cache; if it has not
+     * been checked yet, the user's home folder is used and the folder is checked in the background.
      *
      * @param document the current document
      * @return the initial folder to set
      */
     private Path initialDir(@Nullable D document) {
         if (document == null) {
-            getApp();
             return FxApplication.getUserHome();
         }
 
@@ -432,36 +1287,34 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
                 parent = document.getPath().getParent();
                 LOG.debug("initialDir() - using parent folder of current document as parent: {}", parent);
             } else {
-                String lastDocument = getApp().getPreference(PREF_DOCUMENT, "");
-                if (lastDocument.isBlank()) {
-                    getApp();
-                    parent = FxApplication.getUserHome();
-                    LOG.debug("initialDir() - last document location not set, using user home as parent: {}", parent);
-                } else {
-                    try {
-                        Path path = Paths.get(URI.create(lastDocument));
-                        parent = path.getParent();
-                        LOG.debug("initialDir() - using last document location as parent: {}", parent);
-                    } catch (IllegalArgumentException e) {
-                        LOG.warn("could not retrieve last document location", e);
-                        parent = FxApplication.getUserHome();
-                    }
-                }
+                parent = lastDocumentDir();
+                LOG.debug("initialDir() - using last document location as parent: {}", parent);
             }
         } catch (IllegalStateException e) {
             // might for example be thrown by URI.create()
             LOG.warn("initialDir() - could not determine initial folder", e);
         }
 
-        Path initialDir = parent;
+        return directoryCache.get(parent);
+    }
 
-        if (initialDir == null || !Files.isDirectory(initialDir)) {
-            LOG.warn("initialDir() - initial directory invalid, using user home instead: {}", initialDir);
-            getApp();
-            initialDir = FxApplication.getUserHome();
+    /**
+     * Get the parent folder of the last document stored in the preferences.
+     *
+     * @return the parent folder of the last document, or {@code null} if not set or invalid
+     */
+    private @Nullable Path lastDocumentDir() {
+        String lastDocument = getApp().getPreference(PREF_DOCUMENT, "");
+        if (lastDocument.isBlank()) {
+            return null;
         }
 
-        return initialDir;
+        try {
+            return Paths.get(URI.create(lastDocument)).getParent();
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            LOG.warn("could not retrieve last document location", e);
+            return null;
+        }
     }
 
     private boolean saveDocumentAndHandleErrors(D document, URI uri) {
@@ -470,14 +1323,50 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
             return true;
         } catch (Exception e) {
             LOG.warn("error saving document", e);
-            getApp().showErrorDialog(
-                    i18n.format("fx.application.dialog.error.save.{0.document}", FxApplication.asText(uri)),
-                    e.getLocalizedMessage()
-            );
+            showSaveDocumentError(uri, e);
             return false;
         }
     }
 
+    /**
+     * Saves the document in the background and reports errors to the user.
+     * <p>
+     * The returned future is completed on the JavaFX Application Thread.
+     *
+     * @param document the document to save
+     * @param uri      the location to save the document to
+     * @return a future that completes with true if the document was successfully saved, false otherwise
+     */
+    private CompletableFuture<Boolean> saveDocumentAsync(D document, URI uri) {
+        if (document.isSaving()) {
+            LOG.info("document is already being saved: {}", document);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> result = document.saveAsAsync(uri, getBackgroundExecutor())
+                .handleAsync((v, e) -> {
+                    if (e == null) {
+                        return true;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    LOG.warn("error saving document", cause);
+                    showSaveDocumentError(uri, cause);
+                    return false;
+                }, FX_EXECUTOR);
+
+        pendingSaves.add(result);
+        result.whenComplete((rc, e) -> pendingSaves.remove(result));
+
+        return result;
+    }
+
+    private void showSaveDocumentError(URI uri, Throwable e) {
+        getApp().showErrorDialog(
+                i18n.format("fx.application.dialog.error.save.{0.document}", FxApplication.asText(uri)),
+                String.valueOf(e.getLocalizedMessage())
+        );
+    }
+
     /**
      * Creates a new document. This method is a placeholder and not yet implemented.
      *
@@ -491,19 +1380,55 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
         throw new UnsupportedOperationException("not implemented");
     }
 
+    /**
+     * Restores a document from changes recorded in the recovery journal.
+     *
+     * <p>Implementations load the document from the given location (or create a new document if the location is
+     * {@link FxDocument#VOID_URI}) and apply the recorded changes in order.
+     *
+     * @param location the location of the document at the time the changes were recorded
+     * @param changes the changes recorded by {@link FxDocument#recordChange(byte[])}
+     * @return the restored document
+     * @throws IOException if an I/O error occurs while loading the document
+     * @throws UnsupportedOperationException indicating that the method needs to be implemented.
+     */
+    protected D restoreDocument(URI location, List<byte[]> changes) throws IOException {
+        throw new UnsupportedOperationException("not implemented");
+    }
+
     /**
      * Loads a document from the specified URI.
      *
-     * <p>Subclasses should override this method to provide specific functionality
-     * for creating a new document.
+     * <p>Subclasses should override either this method or {@link #loadDocument(DocumentInput)} to provide
+     * specific functionality for loading a document. The default implementation opens a {@link DocumentInput}
+     * for the URI and passes it to {@link #loadDocument(DocumentInput)}.
      *
      * @param uri the URI from which to load the document
      * @return the document loaded from the specified URI
      * @throws IOException if an I/O error occurs while loading the document
      * @throws UnsupportedOperationException indicating that the method needs to be implemented.
      */
-    @SuppressWarnings({"static-method", "unused", "RedundantThrows"})
     protected D loadDocument(URI uri) throws IOException {
+        try (DocumentInput input = DocumentInput.open(uri)) {
+            return loadDocument(input);
+        }
+    }
+
+    /**
+     * Loads a document from the specified input.
+     *
+     * <p>This method is called by the default implementation of {@link #loadDocument(URI)} with an input created by
+     * {@link DocumentInput#open(URI)}. To parse local files from a memory mapped buffer, override
+     * {@link #loadDocument(URI)} and use {@link DocumentInput#openMapped(URI)}; note that on Windows, mapped files
+     * cannot be replaced when the document is saved until the mapping has been released.
+     *
+     * @param input the input to read the document from
+     * @return the document loaded from the input
+     * @throws IOException if an I/O error occurs while loading the document
+     * @throws UnsupportedOperationException indicating that the method needs to be implemented.
+     */
+    @SuppressWarnings({"static-method", "unused", "RedundantThrows"})
+    protected D loadDocument(DocumentInput input) throws IOException {
         throw new UnsupportedOperationException("not implemented");
     }
 
@@ -571,7 +1496,14 @@ public abstract class FxController<A extends FxApplication<A, C>, C extends FxCo
     void setApp(A app) {
         LangUtil.check(this.app == null, "app instance was already set");
         this.app = app;
+        app.addCleanupAction(this::closeTaskExecutor);
         init(app);
+
+        // check the last document folder in the background after the application has set up its preferences
+        Path lastDir = lastDocumentDir();
+        if (lastDir != null) {
+            directoryCache.refresh(lastDir);
+        }
     }
 
     /**
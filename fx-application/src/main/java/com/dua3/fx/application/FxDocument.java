@@ -2,15 +2,33 @@ package com.dua3.fx.application;
 
 import com.dua3.utility.io.IoUtil;
 import com.dua3.utility.lang.LangUtil;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import org.jspecify.annotations.Nullable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Abstract class representing a document in the application.
@@ -25,6 +43,11 @@ public abstract class FxDocument {
 
     private final BooleanProperty dirtyProperty = new SimpleBooleanProperty(false);
     private final ObjectProperty<URI> locationProperty = new SimpleObjectProperty<>(VOID_URI);
+    private final ReadOnlyBooleanWrapper savingProperty = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyObjectWrapper<@Nullable Instant> lastSavedProperty = new ReadOnlyObjectWrapper<>();
+    private final ReadOnlyLongWrapper changeCountProperty = new ReadOnlyLongWrapper(0);
+    private volatile @Nullable Consumer<byte[]> changeRecorder;
+    private volatile @Nullable String locationText;
 
     /**
      * Constructs a new FxDocument with the specified location.
@@ -34,6 +57,7 @@ public abstract class FxDocument {
      */
     protected FxDocument(URI location) {
         locationProperty().set(location);
+        locationProperty().addListener((v, o, n) -> locationText = null);
     }
 
     /**
@@ -69,6 +93,21 @@ public abstract class FxDocument {
         return locationProperty().get();
     }
 
+    /**
+     * Retrieves the location of the document as decoded text, as returned by {@link FxApplication#asText(URI)}.
+     * The text is cached until the location changes.
+     *
+     * @return the text representation of the document's location
+     */
+    public String getLocationText() {
+        String text = locationText;
+        if (text == null) {
+            text = FxApplication.asText(getLocation());
+            locationText = text;
+        }
+        return text;
+    }
+
     /**
      * Sets the location of the document.
      *
@@ -98,18 +137,61 @@ public abstract class FxDocument {
     public void save() throws IOException {
         LangUtil.check(hasLocation(), "location not set");
         write(locationProperty().get());
+        lastSavedProperty.set(Instant.now());
     }
 
     /**
      * Writes the document's content to the specified location represented by the given URI.
      * <p>
-     * <strong>NOTE:</strong> Implementations should update the document URI on successful save.
+     * The default implementation passes {@link #writeContent(OutputStream)} to
+     * {@link #writeAtomically(URI, ContentWriter)}, so that implementations only need to stream the document's
+     * content. Implementations that need full control over the write process can override this method instead.
+     * <p>
+     * <strong>NOTE:</strong> Implementations must not change the document's location; the location is updated by
+     * the calling method on successful save. Implementations that override this method should also override
+     * {@link #writeSnapshot(Path)} if they do not implement {@link #writeContent(OutputStream)}.
      *
      * @param uri the location the document should be written to
      * @throws IOException on error
      * */
+    protected void write(URI uri) throws IOException {
+        writeAtomically(uri, this::writeContent);
+    }
+
+    /**
+     * Writes the document's content to a stream.
+     * <p>
+     * This method is called by the default implementations of {@link #write(URI)} and {@link #writeSnapshot(Path)}.
+     * The stream is buffered, and implementations should write the content sequentially in a single pass. The stream
+     * must not be closed.
+     *
+     * @param out the stream to write the content to
+     * @throws IOException on error
+     * @throws UnsupportedOperationException if neither this method nor {@link #write(URI)} is overridden
+     */
     @SuppressWarnings("RedundantThrows")
-    protected abstract void write(URI uri) throws IOException;
+    protected void writeContent(OutputStream out) throws IOException {
+        throw new UnsupportedOperationException("not implemented");
+    }
+
+    /**
+     * Writes data to a file in a crash-safe way.
+     * <p>
+     * The data is written to a temporary file in the target directory. After the writer has finished, the temporary
+     * file is synced to disk and moved to the target location, replacing an existing file. When supported by the
+     * file system, the move is atomic. If an error occurs, the temporary file is deleted and an existing file at the
+     * target location is left unchanged.
+     * <p>
+     * If a {@link java.nio.channels.WritableByteChannel} is needed, use
+     * {@link java.nio.channels.Channels#newChannel(OutputStream)} to wrap the stream passed to the writer.
+     *
+     * @param uri    the location to write to; only URIs representing a local file are supported
+     * @param writer the writer that writes the data
+     * @throws IOException on error
+     */
+    protected final void writeAtomically(URI uri, ContentWriter writer) throws IOException {
+        AtomicFileWriter.write(Paths.get(uri), writer);
+    }
 
     /**
      * Saves the current document to a new location specified by the provided URI
@@ -121,6 +203,205 @@ public abstract class FxDocument {
     public void saveAs(URI uri) throws IOException {
         write(uri);
         setLocation(uri);
+        lastSavedProperty.set(Instant.now());
+    }
+
+    /**
+     * Writes a snapshot of the document's content to the given file, e.g., for autosaving.
+     * <p>
+     * Writing a snapshot must not change the document's state, i.e., location, dirty state, and the information
+     * about what has been changed since the last save must be left untouched. The default implementation passes
+     * {@link #writeContent(OutputStream)} to {@link #writeAtomically(URI, ContentWriter)}; implementations that
+     * override {@link #write(URI)} instead of {@code writeContent()} must override this method.
+     * <p>
+     * This method is called on a background thread while the document might be edited at the same time.
+     * Implementations must make sure to write a consistent state. The default implementation calls
+     * {@code writeContent()} on the JavaFX Application Thread to capture the content in memory and writes the
+     * captured content on the calling thread.
+     *
+     * @param path the file to write the snapshot to
+     * @throws IOException on error
+     */
+    protected void writeSnapshot(Path path) throws IOException {
+        byte[] content = callOnFxThread(() -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeContent(out);
+            return out.toByteArray();
+        });
+        writeAtomically(path.toUri(), out -> out.write(content));
+    }
+
+    /**
+     * Run an action on the JavaFX Application Thread and wait for the result. If called on the JavaFX Application
+     * Thread, the action is run directly.
+     *
+     * @param action the action
+     * @param <T>    the result type
+     * @return the result of the action
+     * @throws IOException if the action throws an IOException or the calling thread is interrupted while waiting
+     */
+    static <T> T callOnFxThread(Callable<T> action) throws IOException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(action.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        if (Platform.isFxApplicationThread()) {
+            task.run();
+        } else {
+            Platform.runLater(task);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the JavaFX Application Thread");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Saves the document to a new location in the background.
+     * <p>
+     * The document's content is written by calling {@link #write(URI)} on the given executor. While the write is in
+     * progress, {@link #savingProperty()} is set, and the document must not be modified. When writing has finished,
+     * the saving state is reset and, if writing was successful, the document's location is updated. Both updates
+     * take place on the JavaFX Application Thread before the returned future completes.
+     * <p>
+     * This method must be called on the JavaFX Application Thread.
+     *
+     * @param uri      the URI representing the new location to save the document to
+     * @param executor the executor used to write the document
+     * @return a future that completes when the document has been saved; in case of an error, the future is
+     * completed exceptionally
+     * @throws IllegalStateException if a save operation for this document is already in progress
+     */
+    public CompletableFuture<Void> saveAsAsync(URI uri, Executor executor) {
+        LangUtil.check(!isSaving(), "save already in progress");
+
+        savingProperty.set(true);
+        return CompletableFuture.runAsync(() -> {
+                    try {
+                        write(uri);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, executor)
+                .whenCompleteAsync((v, e) -> {
+                    savingProperty.set(false);
+                    if (e == null) {
+                        setLocation(uri);
+                        lastSavedProperty.set(Instant.now());
+                    }
+                }, Platform::runLater);
+    }
+
+    /**
+     * Checks whether a save operation is in progress for this document.
+     *
+     * @return true, if the document is currently being saved in the background
+     */
+    public boolean isSaving() {
+        return savingProperty.get();
+    }
+
+    /**
+     * Provides access to the property indicating whether the document is currently being saved in the background.
+     * <p>
+     * Editors should be disabled while this property is set because the document must not be modified while
+     * it is being written.
+     *
+     * @return the ReadOnlyBooleanProperty indicating that a save operation is in progress
+     */
+    public final ReadOnlyBooleanProperty savingProperty() {
+        return savingProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Provides access to the property holding the time the document was last saved by this instance.
+     * <p>
+     * The property is updated after each successful save operation and is {@code null} if the document has not
+     * been saved since it was created or loaded.
+     *
+     * @return the ReadOnlyObjectProperty holding the time of the last successful save
+     */
+    public final ReadOnlyObjectProperty<@Nullable Instant> lastSavedProperty() {
+        return lastSavedProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Provides access to the property counting the changes to the document's content.
+     * <p>
+     * The count is incremented by {@link #contentChanged()} and {@link #recordChange(byte[])}, e.g., to schedule an
+     * autosave after each change.
+     *
+     * @return the ReadOnlyLongProperty holding the number of changes
+     */
+    public final ReadOnlyLongProperty changeCountProperty() {
+        return changeCountProperty.getReadOnlyProperty();
+    }
+
+    /**
+     * Notify listeners of {@link #changeCountProperty()} that the document's content has changed. Implementations
+     * that do not call {@link #recordChange(byte[])} should call this method on the JavaFX Application Thread after
+     * each modification.
+     */
+    protected final void contentChanged() {
+        changeCountProperty.set(changeCountProperty.get() + 1);
+    }
+
+    /**
+     * Records a change to the document in the recovery journal, if one is attached (see
+     * {@link FxController#enableRecovery()}), and calls {@link #contentChanged()}.
+     * <p>
+     * Implementations call this method after each modification with a compact, self-contained description of the
+     * change. After an abnormal termination of the application, the recorded changes are passed in order to
+     * {@link FxController#restoreDocument(URI, java.util.List)}. The record is written asynchronously, so this method
+     * returns immediately. The array must not be modified after it has been passed to this method.
+     *
+     * @param change the serialized change
+     */
+    protected final void recordChange(byte[] change) {
+        contentChanged();
+        Consumer<byte[]> recorder = changeRecorder;
+        if (recorder != null) {
+            recorder.accept(change);
+        }
+    }
+
+    /**
+     * Set the consumer for changes passed to {@link #recordChange(byte[])}.
+     *
+     * @param recorder the recorder, or {@code null} to stop recording changes
+     */
+    void setChangeRecorder(@Nullable Consumer<byte[]> recorder) {
+        this.changeRecorder = recorder;
+    }
+
+    /**
+     * Checks that the document may be modified. Implementations should call this method before modifying the
+     * document's content.
+     *
+     * @throws IllegalStateException if the document is currently being saved
+     */
+    protected final void checkModifiable() {
+        LangUtil.check(!isSaving(), "document is being saved and cannot be modified");
     }
 
     /**
@@ -157,4 +438,18 @@ public abstract class FxDocument {
     public final ObjectProperty<URI> locationProperty() {
         return locationProperty;
     }
+
+    /**
+     * A functional interface for writing content to a stream.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        /**
+         * Write content to the given stream.
+         *
+         * @param out the stream; it must not be closed by the writer
+         * @throws IOException on error
+         */
+        void write(OutputStream out) throws IOException;
+    }
 }
@@ -0,0 +1,586 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableSet;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Base class for controllers that keep multiple documents open at the same time.
+ * <p>
+ * Open documents are represented by {@link DocumentHandle} instances contained in the observable set returned by
+ * {@link #getOpenDocuments()}. The current document is the document the user is working on; opening or creating a
+ * document adds it to the set of open documents and makes it the current document without closing the previous one.
+ * <p>
+ * To limit memory usage, the content of open documents is only kept in memory as long as the estimated memory usage
+ * of all documents in memory does not exceed the {@link #getMemoryBudget() memory budget}. When the budget is
+ * exceeded, the least recently used documents are released; only documents that are not modified, not being saved,
+ * have a location, and are not the current document are released. Released documents are kept in a soft cache until
+ * memory gets low and are transparently reloaded using {@link #loadDocument(URI)} when they are accessed again.
+ *
+ * @param <A> the application class
+ * @param <C> the controller class
+ * @param <D> the document class
+ */
+public abstract class FxMultiDocumentController<A extends FxApplication<A, C>, C extends FxController<A, C, D>, D extends FxDocument>
+        extends FxController<A, C, D> {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(FxMultiDocumentController.class);
+
+    /**
+     * The default memory budget as fraction of the maximum heap size.
+     */
+    private static final double DEFAULT_MEMORY_BUDGET_RATIO = 0.5;
+
+    /**
+     * A document that is open in the controller. The document content might not be held in memory.
+     *
+     * @param <D> the document class
+     */
+    public static final class DocumentHandle<D extends FxDocument> {
+        private URI location;
+        private @Nullable D document;
+        private SoftReference<@Nullable D> cached = new SoftReference<>(null);
+        private @Nullable CompletableFuture<D> loading;
+        private long memoryUsage;
+        private @Nullable ChangeListener<Boolean> dirtyListener;
+
+        private DocumentHandle(URI location) {
+            this.location = location;
+        }
+
+        /**
+         * Get the location of the document.
+         *
+         * @return the document location
+         */
+        public URI getLocation() {
+            D d = document;
+            return d != null ? d.getLocation() : location;
+        }
+
+        /**
+         * Check whether the document is held in memory.
+         *
+         * @return true, if the document is in memory, false if it has to be reloaded when accessed
+         */
+        public boolean isResident() {
+            return document != null;
+        }
+
+        /**
+         * Get the document if it is held in memory.
+         *
+         * @return the document, or an empty Optional if the document has been released
+         */
+        public Optional<D> getDocumentIfResident() {
+            return Optional.ofNullable(document);
+        }
+
+        @Override
+        public String toString() {
+            return "DocumentHandle{" + FxApplication.asText(getLocation()) + (isResident() ? "" : ", released") + "}";
+        }
+    }
+
+    /**
+     * Actions to run when a document is loaded into memory or released.
+     *
+     * @param onOpen  the action to run when a document is loaded
+     * @param onClose the action to run when a document is released
+     * @param <D>     the document class
+     */
+    private record DocumentTracker<D>(Consumer<? super D> onOpen, Consumer<? super D> onClose) {}
+
+    private final ObservableSet<DocumentHandle<D>> openDocuments = FXCollections.observableSet(new LinkedHashSet<>());
+    private final ObservableSet<DocumentHandle<D>> openDocumentsView = FXCollections.unmodifiableObservableSet(openDocuments);
+    /**
+     * The handles of documents held in memory, in access order (least recently used first).
+     */
+    private final LinkedHashMap<DocumentHandle<D>, Boolean> residentDocuments = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<DocumentTracker<D>> trackers = new ArrayList<>();
+    /**
+     * Memory usage estimates of documents loaded in the background that have not yet been made resident.
+     */
+    private final Map<D, Long> loadedEstimates = Collections.synchronizedMap(new WeakHashMap<>());
+    private long memoryBudget = (long) (Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_BUDGET_RATIO);
+
+    /**
+     * The Default constructor. Just declared here to reduce visibility.
+     */
+    protected FxMultiDocumentController() {
+    }
+
+    /**
+     * Get the open documents.
+     *
+     * @return unmodifiable observable set containing the handles of all open documents
+     */
+    public ObservableSet<DocumentHandle<D>> getOpenDocuments() {
+        return openDocumentsView;
+    }
+
+    /**
+     * Find an open document by its location.
+     *
+     * @param location the document location
+     * @return the handle of the document, or an empty Optional if no document with this location is open
+     */
+    public Optional<DocumentHandle<D>> findDocument(URI location) {
+        return openDocuments.stream()
+                .filter(handle -> handle.getLocation().equals(location))
+                .findFirst();
+    }
+
+    private Optional<DocumentHandle<D>> findHandle(D document) {
+        return openDocuments.stream()
+                .filter(handle -> handle.document == document || handle.cached.get() == document)
+                .findFirst();
+    }
+
+    /**
+     * Add a document to the open documents without making it the current document.
+     *
+     * @param document the document
+     * @return the handle of the document
+     */
+    protected DocumentHandle<D> addDocument(D document) {
+        return addDocument(document, null);
+    }
+
+    /**
+     * Add a document to the open documents without making it the current document.
+     *
+     * @param document the document
+     * @param keep     a document that must not be released to meet the memory budget, e.g., because it is about to
+     *                 become the current document, or {@code null}
+     * @return the handle of the document
+     */
+    private DocumentHandle<D> addDocument(D document, @Nullable D keep) {
+        Optional<DocumentHandle<D>> existing = findHandle(document);
+        if (existing.isPresent()) {
+            DocumentHandle<D> handle = existing.get();
+            if (handle.document == null) {
+                makeResident(handle, document);
+                evictDocuments(keep);
+            }
+            return handle;
+        }
+
+        DocumentHandle<D> handle = new DocumentHandle<>(document.getLocation());
+        openDocuments.add(handle);
+        makeResident(handle, document);
+        evictDocuments(keep);
+        return handle;
+    }
+
+    /**
+     * Opens a document from the specified URI. If a document with this location is already open, it is made the
+     * current document instead.
+     *
+     * @param uri the URI from which to open the document
+     * @return true if the document was successfully opened, false otherwise
+     */
+    @Override
+    protected boolean open(URI uri) {
+        Optional<DocumentHandle<D>> handle = findDocument(uri);
+        if (handle.isEmpty()) {
+            return super.open(uri);
+        }
+
+        try {
+            setCurrentDocument(getDocument(handle.get()));
+            return true;
+        } catch (Exception e) {
+            LOG.warn("error reloading document", e);
+            showOpenDocumentError(uri, e);
+            return false;
+        }
+    }
+
+    /**
+     * Close a document. If the document is the current document, the current document is cleared.
+     * <p>
+     * Unsaved changes are discarded; callers are responsible for checking the dirty state before closing.
+     *
+     * @param handle the handle of the document
+     */
+    public void closeDocument(DocumentHandle<D> handle) {
+        if (!openDocuments.remove(handle)) {
+            return;
+        }
+
+        D document = handle.document;
+        if (document != null && getCurrentDocument().orElse(null) == document) {
+            clearDocument();
+        }
+        release(handle);
+        handle.cached.clear();
+    }
+
+    /**
+     * Get a document, reloading it if it has been released. The document is loaded on the calling thread.
+     *
+     * @param handle the handle of the document
+     * @return the document
+     * @throws IOException if the document has to be reloaded and loading fails
+     */
+    public D getDocument(DocumentHandle<D> handle) throws IOException {
+        D document = reuse(handle);
+        if (document == null) {
+            LOG.debug("reloading document {}", handle.location);
+            document = loadDocument(handle.location);
+            makeResident(handle, document);
+            evictDocuments();
+        }
+        return document;
+    }
+
+    /**
+     * Get a document, reloading it in the background if it has been released.
+     * <p>
+     * The document is loaded on the executor returned by {@link #getBackgroundExecutor()}. The returned future
+     * completes on the JavaFX Application Thread. This method must be called on the JavaFX Application Thread.
+     *
+     * @param handle the handle of the document
+     * @return future that completes with the document
+     */
+    public CompletableFuture<D> getDocumentAsync(DocumentHandle<D> handle) {
+        D document = reuse(handle);
+        if (document != null) {
+            return CompletableFuture.completedFuture(document);
+        }
+
+        if (handle.loading == null) {
+            URI location = handle.location;
+            LOG.debug("reloading document {} in the background", location);
+            handle.loading = CompletableFuture.supplyAsync(() -> {
+                try {
+                    D d = loadDocument(location);
+                    documentLoaded(d);
+                    return d;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, getBackgroundExecutor()).whenCompleteAsync((d, e) -> {
+                handle.loading = null;
+                if (d != null && openDocuments.contains(handle) && handle.document == null) {
+                    makeResident(handle, d);
+                    evictDocuments();
+                }
+            }, Platform::runLater);
+        }
+
+        // the loaded instance is the resident one unless the handle was reloaded synchronously in the meantime
+        return handle.loading.thenApply(d -> handle.document != null ? handle.document : d);
+    }
+
+    /**
+     * Make a document the current document, reloading it in the background if necessary.
+     *
+     * @param handle the handle of the document
+     * @return future that completes with the document once it has been made the current document
+     */
+    public CompletableFuture<D> activate(DocumentHandle<D> handle) {
+        return getDocumentAsync(handle).whenComplete((d, e) -> {
+            if (d != null) {
+                setCurrentDocument(d);
+            } else {
+                LOG.warn("error reloading document {}", handle.location, e);
+                showOpenDocumentError(handle.location, e);
+            }
+        });
+    }
+
+    /**
+     * Get the memory budget.
+     *
+     * @return the maximum estimated memory usage of documents held in memory, in bytes
+     */
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Set the memory budget. Documents are released if the new budget is exceeded.
+     * <p>
+     * The default budget is half of the maximum heap size.
+     *
+     * @param memoryBudget the maximum estimated memory usage of documents held in memory, in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        evictDocuments();
+    }
+
+    /**
+     * Estimate the memory used by a document. This method is called when a document is loaded into memory.
+     * <p>
+     * For documents loaded in the background by {@link #openAll(List)} and {@link #getDocumentAsync(DocumentHandle)},
+     * this method is called on the loading thread, and the result is kept until the document is added to the open
+     * documents. For documents passed to this controller directly, e.g., by {@link #setCurrentDocument(FxDocument)},
+     * it is called on the calling thread. The estimate of a document that is reused after it has been released is
+     * not recomputed.
+     * <p>
+     * The default implementation returns the size of the document's file, or 0 if the document is not stored in
+     * a local file. Implementations should override this method to provide a better estimate.
+     *
+     * @param document the document
+     * @return the estimated memory usage of the document in bytes
+     */
+    protected long estimateMemoryUsage(D document) {
+        if (!document.hasLocation() || !"file".equalsIgnoreCase(document.getLocation().getScheme())) {
+            return 0;
+        }
+        try {
+            Path path = document.getPath();
+            return Files.isRegularFile(path) ? Files.size(path) : 0;
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("could not determine size of {}", document.getLocation(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Get the estimated memory usage of all documents held in memory.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getResidentMemoryUsage() {
+        return residentDocuments.keySet().stream().mapToLong(handle -> handle.memoryUsage).sum();
+    }
+
+    @Override
+    public List<D> dirtyDocuments() {
+        List<D> dirty = new ArrayList<>();
+        for (DocumentHandle<D> handle : openDocuments) {
+            D document = handle.document;
+            if (document != null && document.isDirty()) {
+                dirty.add(document);
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Set the current document. The document is added to the open documents if it is not already contained.
+     *
+     * @param document the document
+     */
+    @Override
+    protected void setCurrentDocument(D document) {
+        // the document is not current yet and must not be released before it is activated
+        DocumentHandle<D> handle = addDocument(document, document);
+        residentDocuments.get(handle); // mark as recently used
+        super.setCurrentDocument(document);
+        evictDocuments();
+    }
+
+    /**
+     * Documents are kept open when a new document is created or opened, so no confirmation is needed.
+     *
+     * @return true
+     */
+    @Override
+    protected boolean confirmReplaceCurrentDocument() {
+        return true;
+    }
+
+    @Override
+    protected void trackOpenDocuments(Consumer<? super D> onOpen, Consumer<? super D> onClose) {
+        trackers.add(new DocumentTracker<>(onOpen, onClose));
+        residentDocuments.keySet().forEach(handle -> {
+            if (handle.document != null) {
+                onOpen.accept(handle.document);
+            }
+        });
+    }
+
+    /**
+     * Open multiple documents in the background using {@link #loadAll(List)}. Documents that are already open are not
+     * loaded again.
+     * <p>
+     * The memory budget is applied when the loaded documents are added to the open documents. Until then, all
+     * documents of the call are held in memory, so the peak memory use can exceed the budget by the size of these
+     * documents.
+     *
+     * @param uris the URIs of the documents to open; duplicates are ignored
+     * @return a future that completes with the loaded documents in the order of the URIs
+     */
+    @Override
+    public CompletableFuture<List<D>> openAll(List<URI> uris) {
+        return loadAll(uris.stream().filter(uri -> findDocument(uri).isEmpty()).toList());
+    }
+
+    /**
+     * Add all loaded documents to the open documents. The last document becomes the current document.
+     *
+     * @param documents the loaded documents, in the order they were requested; never empty
+     */
+    @Override
+    protected void documentsOpened(List<D> documents) {
+        D last = documents.getLast();
+        documents.forEach(document -> addDocument(document, last));
+        setCurrentDocument(last);
+    }
+
+    /**
+     * Restore all recovered documents. The most recently modified document becomes the current document.
+     *
+     * @param recovered the recovered documents, ordered by the time of the last recorded change
+     */
+    @Override
+    protected void restoreDocuments(List<RecoveryJournal.RecoveredDocument> recovered) {
+        List<D> documents = new ArrayList<>(recovered.size());
+        for (RecoveryJournal.RecoveredDocument r : recovered) {
+            restore(r).ifPresent(documents::add);
+        }
+        if (!documents.isEmpty()) {
+            D last = documents.getLast();
+            documents.forEach(document -> addDocument(document, last));
+            setCurrentDocument(last);
+        }
+    }
+
+    /**
+     * Estimate the memory usage of a document loaded in the background on the loading thread, so that the file system
+     * is not accessed on the JavaFX Application Thread when the document is made resident.
+     *
+     * @param document the loaded document
+     */
+    @Override
+    void documentLoaded(D document) {
+        loadedEstimates.put(document, estimateMemoryUsage(document));
+    }
+
+    private @Nullable D reuse(DocumentHandle<D> handle) {
+        D document = handle.document;
+        if (document == null) {
+            document = handle.cached.get();
+            if (document != null) {
+                LOG.trace("reusing cached document {}", handle.location);
+                makeResident(handle, document);
+                evictDocuments();
+            }
+        }
+        return document;
+    }
+
+    private void makeResident(DocumentHandle<D> handle, D document) {
+        // the estimate is kept when a released document is reused
+        Long estimate = loadedEstimates.remove(document);
+        if (estimate != null) {
+            handle.memoryUsage = estimate;
+        } else if (handle.cached.get() != document) {
+            handle.memoryUsage = estimateMemoryUsage(document);
+        }
+
+        handle.document = document;
+        handle.cached = new SoftReference<>(document);
+
+        // documents that become clean might be released
+        ChangeListener<Boolean> dirtyListener = (v, o, n) -> {
+            if (!n) {
+                evictDocuments();
+            }
+        };
+        handle.dirtyListener = dirtyListener;
+        document.dirtyProperty().addListener(dirtyListener);
+
+        residentDocuments.put(handle, Boolean.TRUE);
+        trackers.forEach(tracker -> tracker.onOpen().accept(document));
+    }
+
+    private void release(DocumentHandle<D> handle) {
+        D document = handle.document;
+        if (document == null) {
+            return;
+        }
+
+        residentDocuments.remove(handle);
+        if (handle.dirtyListener != null) {
+            document.dirtyProperty().removeListener(handle.dirtyListener);
+            handle.dirtyListener = null;
+        }
+        handle.location = document.getLocation();
+        handle.document = null;
+        trackers.forEach(tracker -> tracker.onClose().accept(document));
+    }
+
+    private boolean isEvictable(DocumentHandle<D> handle, @Nullable D keep) {
+        D document = handle.document;
+        return document != null
+                && document != keep
+                && !document.isDirty()
+                && !document.isSaving()
+                && document.hasLocation()
+                && getCurrentDocument().orElse(null) != document;
+    }
+
+    /**
+     * Release least recently used documents until the memory budget is met.
+     */
+    private void evictDocuments() {
+        evictDocuments(null);
+    }
+
+    /**
+     * Release least recently used documents until the memory budget is met.
+     *
+     * @param keep a document that must not be released, or {@code null}
+     */
+    private void evictDocuments(@Nullable D keep) {
+        long usage = getResidentMemoryUsage();
+        if (usage <= memoryBudget) {
+            return;
+        }
+
+        for (DocumentHandle<D> handle : List.copyOf(residentDocuments.keySet())) {
+            if (usage <= memoryBudget) {
+                break;
+            }
+            if (isEvictable(handle, keep)) {
+                LOG.debug("releasing document {} ({} bytes)", handle.getLocation(), handle.memoryUsage);
+                usage -= handle.memoryUsage;
+                release(handle);
+            }
+        }
+    }
+}
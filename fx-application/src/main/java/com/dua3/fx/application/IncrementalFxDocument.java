@@ -0,0 +1,174 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Abstract base class for documents that support incremental saving.
+ * <p>
+ * The document content is divided into chunks identified by a {@code long} id. Documents are stored in a journaled
+ * container file: when a document is saved to the location it was loaded from, only the chunks that have been
+ * modified since the last save are appended to the file, and removed chunks are recorded as such. When the ratio of
+ * outdated data in the file exceeds the {@link #getCompactionThreshold() compaction threshold}, or when the document
+ * is saved to a new location, the complete document is written to a new file.
+ * <p>
+ * Implementations load their content by calling {@link #readChunks()} and provide the chunks and the information
+ * which chunks are modified by implementing the abstract methods of this class.
+ */
+public abstract class IncrementalFxDocument extends FxDocument {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(IncrementalFxDocument.class);
+    /**
+     * The default compaction threshold.
+     */
+    private static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    /**
+     * The journal for the file at the document location.
+     */
+    private volatile @Nullable ChunkJournal journal;
+
+    /**
+     * Constructs a new IncrementalFxDocument with the specified location.
+     *
+     * @param location the URI representing the document's location
+     */
+    protected IncrementalFxDocument(URI location) {
+        super(location);
+    }
+
+    /**
+     * Get the ids of all chunks of the document, in the order they should be written to a new file.
+     *
+     * @return the chunk ids
+     */
+    protected abstract Collection<Long> chunkIds();
+
+    /**
+     * Get the ids of the chunks that have been modified or added since the document was loaded or last saved.
+     *
+     * @return the ids of modified chunks
+     */
+    protected abstract Collection<Long> dirtyChunkIds();
+
+    /**
+     * Get the serialized data of a chunk.
+     * <p>
+     * This method is called while the document is being saved, possibly on a background thread, and on the JavaFX
+     * Application Thread when a snapshot is written.
+     *
+     * @param id the chunk id
+     * @return the chunk data
+     * @throws IOException on error
+     */
+    protected abstract byte[] chunkData(long id) throws IOException;
+
+    /**
+     * Called after the document has been saved successfully. Implementations should reset the information about
+     * modified chunks.
+     */
+    protected abstract void chunksSaved();
+
+    /**
+     * Get the compaction threshold, i.e., the ratio of outdated data in the file that triggers rewriting the
+     * complete document.
+     *
+     * @return the compaction threshold, a value between 0 and 1
+     */
+    protected double getCompactionThreshold() {
+        return DEFAULT_COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Read the chunks from the file at the document location.
+     *
+     * @return sorted map containing the data of each chunk by id
+     * @throws IOException on error
+     */
+    protected final SortedMap<Long, ByteBuffer> readChunks() throws IOException {
+        ChunkJournal j = ChunkJournal.open(getPath());
+        journal = j;
+        return j.readAll();
+    }
+
+    @Override
+    protected void write(URI uri) throws IOException {
+        Path path = Paths.get(uri);
+
+        ChunkJournal j = journal;
+        if (j != null && uri.equals(getLocation()) && j.isCurrent(path)) {
+            Set<Long> live = new HashSet<>(chunkIds());
+            List<Long> removed = new ArrayList<>();
+            for (long id : j.ids()) {
+                if (!live.contains(id)) {
+                    removed.add(id);
+                }
+            }
+
+            LOG.debug("appending to {}", path);
+            j.append(dirtyChunkIds(), removed, this::chunkData);
+
+            if (j.garbageRatio() > getCompactionThreshold()) {
+                LOG.debug("compacting {}", path);
+                j = ChunkJournal.create(path, chunkIds(), this::chunkData);
+            }
+        } else {
+            LOG.debug("writing {}", path);
+            j = ChunkJournal.create(path, chunkIds(), this::chunkData);
+        }
+
+        journal = j;
+        chunksSaved();
+    }
+
+    /**
+     * Writes all chunks to a new container file. The chunk data is captured on the JavaFX Application Thread, so that
+     * a consistent state is written while the document is edited.
+     *
+     * @param path the file to write the snapshot to
+     * @throws IOException on error
+     */
+    @Override
+    protected void writeSnapshot(Path path) throws IOException {
+        Map<Long, byte[]> chunks = callOnFxThread(() -> {
+            Map<Long, byte[]> data = new LinkedHashMap<>();
+            for (long id : chunkIds()) {
+                data.put(id, chunkData(id));
+            }
+            return data;
+        });
+        ChunkJournal.create(path, chunks.keySet(), chunks::get);
+    }
+}
@@ -0,0 +1,742 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.Property;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * An in-memory cache for a {@link Preferences} node with write-behind to the backing store.
+ * <p>
+ * Values are read from the backing store once and then served from memory without locking. Writes update the cache
+ * immediately and are written to the backing store on a background thread. Writes that occur within a short
+ * period are combined into a single batch, only the latest value of each key is written, and the backing store is
+ * synced once per batch.
+ * <p>
+ * Typed values are stored in the same textual format as the corresponding {@link Preferences} methods. The parsed
+ * value is kept together with the text so that repeated reads neither parse nor box. Records are stored as one entry
+ * per component, using the key {@code <key>.<component name>}.
+ * <p>
+ * Changes made to the preferences node directly, bypassing this cache, are not reflected in cached values.
+ */
+public final class PreferenceCache implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(PreferenceCache.class);
+    /**
+     * The delay before pending writes are written to the backing store.
+     */
+    private static final long WRITE_DELAY_MS = 250;
+    /**
+     * Marker for keys that are not present in the backing store.
+     */
+    private static final Value ABSENT = new Value(null, null);
+
+    private final Preferences node;
+    private final Map<String, Value> values = new ConcurrentHashMap<>();
+    private final Map<String, Value> pending = new ConcurrentHashMap<>();
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private final Map<String, BoundProperty> properties = new ConcurrentHashMap<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final ScheduledExecutorService writer;
+
+    /**
+     * A cached value.
+     *
+     * @param text   the textual representation as stored in the backing store, {@code null} if the key is not present
+     * @param parsed the parsed value, {@code null} if the value has not yet been read using a typed accessor
+     */
+    private record Value(@Nullable String text, @Nullable Parsed parsed) {}
+
+    /**
+     * A parsed value. Primitive values are stored in {@code bits}, other values in {@code object}.
+     *
+     * @param type   the type the text was parsed as
+     * @param bits   the primitive value; doubles are stored as raw long bits
+     * @param object the object value
+     */
+    private record Parsed(Class<?> type, long bits, @Nullable Object object) {}
+
+    /**
+     * A property that is kept in sync with a preference value.
+     *
+     * @param property the property
+     * @param refresh  the action that updates the property from the cached value
+     */
+    private record BoundProperty(Property<?> property, Runnable refresh) {}
+
+    /**
+     * Constructor.
+     *
+     * @param node the preferences node to cache
+     */
+    public PreferenceCache(Preferences node) {
+        this.node = node;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fx-preferences");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the preferences node backing this cache.
+     *
+     * @return the preferences node
+     */
+    public Preferences getNode() {
+        return node;
+    }
+
+    private Value lookup(String key) {
+        Value value = values.get(key);
+        if (value == null) {
+            value = values.computeIfAbsent(key, k -> {
+                String text = node.get(k, null);
+                return text == null ? ABSENT : new Value(text, null);
+            });
+        }
+        return value;
+    }
+
+    /**
+     * Get the parsed value for a key, parsing and caching it if necessary.
+     *
+     * @param key    the key
+     * @param type   the requested type
+     * @param parser the parser; returns {@code null} if the text cannot be parsed
+     * @return the parsed value, or {@code null} if the key is not present or its value cannot be parsed
+     */
+    private @Nullable Parsed parsed(String key, Class<?> type, Function<String, @Nullable Parsed> parser) {
+        Value value = lookup(key);
+        Parsed parsed = value.parsed();
+        if (parsed != null && parsed.type() == type) {
+            return parsed;
+        }
+
+        String text = value.text();
+        if (text == null) {
+            return null;
+        }
+
+        parsed = parser.apply(text);
+        if (parsed != null) {
+            // only replace the entry if it was not changed in the meantime
+            values.replace(key, value, new Value(text, parsed));
+        }
+        return parsed;
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none
+     */
+    public String get(String key, String def) {
+        String text = lookup(key).text();
+        return text == null ? def : text;
+    }
+
+    /**
+     * Get a value that might not be present.
+     *
+     * @param key the key
+     * @return the value associated with the key, or {@code null} if there is none
+     */
+    public @Nullable String getOrNull(String key) {
+        return lookup(key).text();
+    }
+
+    /**
+     * Get an int value.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none or it is not a valid int
+     */
+    public int getInt(String key, int def) {
+        Parsed parsed = parsed(key, int.class, PreferenceCache::parseInt);
+        return parsed == null ? def : (int) parsed.bits();
+    }
+
+    /**
+     * Get a long value.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none or it is not a valid long
+     */
+    public long getLong(String key, long def) {
+        Parsed parsed = parsed(key, long.class, PreferenceCache::parseLong);
+        return parsed == null ? def : parsed.bits();
+    }
+
+    /**
+     * Get a double value.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none or it is not a valid double
+     */
+    public double getDouble(String key, double def) {
+        Parsed parsed = parsed(key, double.class, PreferenceCache::parseDouble);
+        return parsed == null ? def : Double.longBitsToDouble(parsed.bits());
+    }
+
+    /**
+     * Get a boolean value.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none or it is not a valid boolean
+     */
+    public boolean getBoolean(String key, boolean def) {
+        Parsed parsed = parsed(key, boolean.class, PreferenceCache::parseBoolean);
+        return parsed == null ? def : parsed.bits() != 0;
+    }
+
+    /**
+     * Get a byte array value. The value is stored Base64 encoded.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return a copy of the value associated with the key, or the default value if there is none or it is not valid
+     */
+    public byte @Nullable [] getByteArray(String key, byte @Nullable [] def) {
+        Parsed parsed = parsed(key, byte[].class, PreferenceCache::parseByteArray);
+        return parsed == null ? def : ((byte[]) Objects.requireNonNull(parsed.object())).clone();
+    }
+
+    /**
+     * Get an enum value. The value is stored as the name of the enum constant.
+     *
+     * @param <E> the enum type
+     * @param key the key
+     * @param cls the enum class
+     * @param def the default value
+     * @return the value associated with the key, or the default value if there is none or it is not a valid constant
+     */
+    public <E extends Enum<E>> E getEnum(String key, Class<E> cls, E def) {
+        Parsed parsed = parsed(key, cls, text -> parseEnum(cls, text));
+        return parsed == null ? def : cls.cast(parsed.object());
+    }
+
+    /**
+     * Get a record value.
+     * <p>
+     * The components are read from the keys {@code <key>.<component name>}. Components that are not present are
+     * taken from the default value. Supported component types are {@code String}, {@code int}, {@code long},
+     * {@code double}, {@code boolean} and their wrapper types, {@code byte[]}, and enums. The record class must be
+     * accessible to this module.
+     *
+     * @param <R> the record type
+     * @param key the key
+     * @param cls the record class
+     * @param def the default value
+     * @return the value associated with the key
+     * @throws IllegalArgumentException if the record has components of unsupported types
+     */
+    public <R extends Record> R getRecord(String key, Class<R> cls, R def) {
+        Record cached = records.get(key);
+        if (cls.isInstance(cached)) {
+            return cls.cast(cached);
+        }
+
+        RecordComponent[] components = cls.getRecordComponents();
+        Class<?>[] types = new Class<?>[components.length];
+        Object[] args = new Object[components.length];
+        try {
+            for (int i = 0; i < components.length; i++) {
+                RecordComponent component = components[i];
+                types[i] = component.getType();
+                args[i] = getComponent(key + "." + component.getName(), types[i], component.getAccessor().invoke(def));
+            }
+            R value = cls.getDeclaredConstructor(types).newInstance(args);
+            records.put(key, value);
+            return value;
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException e) {
+            LOG.warn("could not create record {} for preference '{}'", cls.getName(), key, e);
+            return def;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private @Nullable Object getComponent(String key, Class<?> type, @Nullable Object def) {
+        if (lookup(key).text() == null) {
+            return def;
+        }
+        if (type == String.class) {
+            return get(key, (String) def);
+        } else if (type == int.class || type == Integer.class) {
+            return getInt(key, def == null ? 0 : (Integer) def);
+        } else if (type == long.class || type == Long.class) {
+            return getLong(key, def == null ? 0L : (Long) def);
+        } else if (type == double.class || type == Double.class) {
+            return getDouble(key, def == null ? 0.0 : (Double) def);
+        } else if (type == boolean.class || type == Boolean.class) {
+            return getBoolean(key, def != null && (Boolean) def);
+        } else if (type == byte[].class) {
+            return getByteArray(key, (byte[]) def);
+        } else if (type.isEnum()) {
+            return getEnum(key, (Class) type, (Enum) def);
+        } else {
+            throw new IllegalArgumentException("unsupported record component type: " + type.getName());
+        }
+    }
+
+    /**
+     * Set a value. The value is written to the backing store in the background.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(String key, String value) {
+        store(key, new Value(value, null));
+    }
+
+    /**
+     * Set an int value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void putInt(String key, int value) {
+        store(key, new Value(Integer.toString(value), new Parsed(int.class, value, null)));
+    }
+
+    /**
+     * Set a long value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void putLong(String key, long value) {
+        store(key, new Value(Long.toString(value), new Parsed(long.class, value, null)));
+    }
+
+    /**
+     * Set a double value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void putDouble(String key, double value) {
+        store(key, new Value(Double.toString(value), new Parsed(double.class, Double.doubleToRawLongBits(value), null)));
+    }
+
+    /**
+     * Set a boolean value.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void putBoolean(String key, boolean value) {
+        store(key, new Value(Boolean.toString(value), new Parsed(boolean.class, value ? 1 : 0, null)));
+    }
+
+    /**
+     * Set a byte array value. The value is stored Base64 encoded.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void putByteArray(String key, byte[] value) {
+        byte[] copy = value.clone();
+        store(key, new Value(Base64.getEncoder().encodeToString(copy), new Parsed(byte[].class, 0, copy)));
+    }
+
+    /**
+     * Set an enum value. The value is stored as the name of the enum constant.
+     *
+     * @param <E>   the enum type
+     * @param key   the key
+     * @param value the value
+     */
+    public <E extends Enum<E>> void putEnum(String key, E value) {
+        store(key, new Value(value.name(), new Parsed(value.getDeclaringClass(), 0, value)));
+    }
+
+    /**
+     * Set a record value. Each component is stored using the key {@code <key>.<component name>}; components that are
+     * {@code null} are removed.
+     *
+     * @param <R>   the record type
+     * @param key   the key
+     * @param value the value
+     * @throws IllegalArgumentException if the record has components of unsupported types
+     * @see #getRecord(String, Class, Record)
+     */
+    public <R extends Record> void putRecord(String key, R value) {
+        try {
+            for (RecordComponent component : value.getClass().getRecordComponents()) {
+                putComponent(key + "." + component.getName(), component.getType(), component.getAccessor().invoke(value));
+            }
+        } catch (InvocationTargetException | IllegalAccessException e) {
+            throw new IllegalArgumentException("could not read record components of " + value.getClass().getName(), e);
+        }
+        records.put(key, value);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void putComponent(String key, Class<?> type, @Nullable Object value) {
+        if (value == null) {
+            remove(key);
+        } else if (type == String.class) {
+            put(key, (String) value);
+        } else if (type == int.class || type == Integer.class) {
+            putInt(key, (Integer) value);
+        } else if (type == long.class || type == Long.class) {
+            putLong(key, (Long) value);
+        } else if (type == double.class || type == Double.class) {
+            putDouble(key, (Double) value);
+        } else if (type == boolean.class || type == Boolean.class) {
+            putBoolean(key, (Boolean) value);
+        } else if (type == byte[].class) {
+            putByteArray(key, (byte[]) value);
+        } else if (type.isEnum()) {
+            putEnum(key, (Enum) value);
+        } else {
+            throw new IllegalArgumentException("unsupported record component type: " + type.getName());
+        }
+    }
+
+    /**
+     * Remove a value. The value is removed from the backing store in the background.
+     *
+     * @param key the key
+     */
+    public void remove(String key) {
+        store(key, ABSENT);
+    }
+
+    private void store(String key, Value value) {
+        Value old = values.put(key, value);
+
+        if (!records.isEmpty()) {
+            int pos = key.lastIndexOf('.');
+            if (pos > 0) {
+                records.remove(key.substring(0, pos));
+            }
+        }
+
+        if (old == null || !Objects.equals(old.text(), value.text())) {
+            pending.put(key, value);
+            if (!closed.get() && writeScheduled.compareAndSet(false, true)) {
+                writer.schedule(this::writePending, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+
+            BoundProperty bound = properties.get(key);
+            if (bound != null) {
+                if (Platform.isFxApplicationThread()) {
+                    bound.refresh().run();
+                } else {
+                    Platform.runLater(bound.refresh());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a property that is kept in sync with a string preference.
+     * <p>
+     * Changes to the property are stored in the preferences, and changes to the preference are reflected in the
+     * property. The property is updated on the JavaFX application thread. Requesting the property for the same key
+     * again returns the same instance.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     */
+    public StringProperty stringProperty(String key, String def) {
+        return property(key, StringProperty.class, k -> {
+            StringProperty p = new SimpleStringProperty(this, k, get(k, def));
+            p.addListener((v, o, n) -> putComponent(k, String.class, p.get()));
+            return new BoundProperty(p, () -> p.set(get(k, def)));
+        });
+    }
+
+    /**
+     * Get a property that is kept in sync with an int preference.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     * @see #stringProperty(String, String)
+     */
+    public IntegerProperty integerProperty(String key, int def) {
+        return property(key, IntegerProperty.class, k -> {
+            IntegerProperty p = new SimpleIntegerProperty(this, k, getInt(k, def));
+            p.addListener((v, o, n) -> putInt(k, p.get()));
+            return new BoundProperty(p, () -> p.set(getInt(k, def)));
+        });
+    }
+
+    /**
+     * Get a property that is kept in sync with a long preference.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     * @see #stringProperty(String, String)
+     */
+    public LongProperty longProperty(String key, long def) {
+        return property(key, LongProperty.class, k -> {
+            LongProperty p = new SimpleLongProperty(this, k, getLong(k, def));
+            p.addListener((v, o, n) -> putLong(k, p.get()));
+            return new BoundProperty(p, () -> p.set(getLong(k, def)));
+        });
+    }
+
+    /**
+     * Get a property that is kept in sync with a double preference.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     * @see #stringProperty(String, String)
+     */
+    public DoubleProperty doubleProperty(String key, double def) {
+        return property(key, DoubleProperty.class, k -> {
+            DoubleProperty p = new SimpleDoubleProperty(this, k, getDouble(k, def));
+            p.addListener((v, o, n) -> putDouble(k, p.get()));
+            return new BoundProperty(p, () -> p.set(getDouble(k, def)));
+        });
+    }
+
+    /**
+     * Get a property that is kept in sync with a boolean preference.
+     *
+     * @param key the key
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     * @see #stringProperty(String, String)
+     */
+    public BooleanProperty booleanProperty(String key, boolean def) {
+        return property(key, BooleanProperty.class, k -> {
+            BooleanProperty p = new SimpleBooleanProperty(this, k, getBoolean(k, def));
+            p.addListener((v, o, n) -> putBoolean(k, p.get()));
+            return new BoundProperty(p, () -> p.set(getBoolean(k, def)));
+        });
+    }
+
+    /**
+     * Get a property that is kept in sync with an enum preference.
+     *
+     * @param <E> the enum type
+     * @param key the key
+     * @param cls the enum class
+     * @param def the default value
+     * @return the property
+     * @throws IllegalArgumentException if a property of a different type has already been created for the key
+     * @see #stringProperty(String, String)
+     */
+    @SuppressWarnings("unchecked")
+    public <E extends Enum<E>> ObjectProperty<E> enumProperty(String key, Class<E> cls, E def) {
+        return property(key, ObjectProperty.class, k -> {
+            ObjectProperty<E> p = new SimpleObjectProperty<>(this, k, getEnum(k, cls, def));
+            p.addListener((v, o, n) -> putComponent(k, cls, p.get()));
+            return new BoundProperty(p, () -> p.set(getEnum(k, cls, def)));
+        });
+    }
+
+    private <P extends Property<?>> P property(String key, Class<P> type, Function<String, BoundProperty> factory) {
+        Property<?> property = properties.computeIfAbsent(key, factory).property();
+        if (!type.isInstance(property)) {
+            throw new IllegalArgumentException("preference '" + key + "' is already bound to a property of type "
+                    + property.getClass().getName());
+        }
+        return type.cast(property);
+    }
+
+    private static @Nullable Parsed parseInt(String text) {
+        try {
+            return new Parsed(int.class, Integer.parseInt(text), null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static @Nullable Parsed parseLong(String text) {
+        try {
+            return new Parsed(long.class, Long.parseLong(text), null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static @Nullable Parsed parseDouble(String text) {
+        try {
+            return new Parsed(double.class, Double.doubleToRawLongBits(Double.parseDouble(text)), null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static @Nullable Parsed parseBoolean(String text) {
+        if (text.equalsIgnoreCase("true")) {
+            return new Parsed(boolean.class, 1, null);
+        }
+        if (text.equalsIgnoreCase("false")) {
+            return new Parsed(boolean.class, 0, null);
+        }
+        return null;
+    }
+
+    private static @Nullable Parsed parseByteArray(String text) {
+        try {
+            return new Parsed(byte[].class, 0, Base64.getDecoder().decode(text));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static <E extends Enum<E>> @Nullable Parsed parseEnum(Class<E> cls, String text) {
+        return Arrays.stream(cls.getEnumConstants())
+                .filter(e -> e.name().equals(text))
+                .findFirst()
+                .map(e -> new Parsed(cls, 0, e))
+                .orElse(null);
+    }
+
+    /**
+     * Write pending changes to the backing store and sync it. Called on the writer thread.
+     */
+    private void writePending() {
+        writeScheduled.set(false);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Value> written = new HashMap<>();
+        for (Map.Entry<String, Value> entry : pending.entrySet()) {
+            String key = entry.getKey();
+            Value value = entry.getValue();
+            // only remove the entry if it was not updated in the meantime
+            if (pending.remove(key, value)) {
+                String text = value.text();
+                if (text == null) {
+                    node.remove(key);
+                } else {
+                    node.put(key, text);
+                }
+                written.put(key, value);
+            }
+        }
+
+        try {
+            node.flush();
+            LOG.debug("wrote {} preference changes", written.size());
+        } catch (BackingStoreException e) {
+            LOG.warn("could not write preferences", e);
+            // keep the changes pending so that they are reported as not written and retried on the next write;
+            // values that were updated in the meantime take precedence
+            written.forEach(pending::putIfAbsent);
+        }
+    }
+
+    /**
+     * Write pending changes to the backing store and wait until they are durable.
+     *
+     * @param timeout the maximum time to wait
+     * @return true, if all pending changes have been written, false if the timeout elapsed or writing failed
+     */
+    public boolean flush(Duration timeout) {
+        if (closed.get()) {
+            return pending.isEmpty();
+        }
+
+        Future<?> f = writer.submit(this::writePending);
+        try {
+            f.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return pending.isEmpty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOG.warn("error writing preferences", e.getCause());
+            return false;
+        } catch (TimeoutException e) {
+            LOG.warn("timeout writing preferences");
+            return false;
+        }
+    }
+
+    /**
+     * Write pending changes and release resources. Waits at most for the given timeout.
+     *
+     * @param timeout the maximum time to wait for pending changes to be written
+     * @return true, if all pending changes have been written
+     */
+    public boolean close(Duration timeout) {
+        boolean written = flush(timeout);
+        if (!closed.getAndSet(true)) {
+            writer.shutdown();
+        }
+        return written;
+    }
+
+    /**
+     * Write pending changes and release resources, using a default timeout of five seconds.
+     */
+    @Override
+    public void close() {
+        close(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,378 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A bounded list of recently used documents.
+ * <p>
+ * The list is stored in a single text file with one line per document. The file is read by {@link #load()} and
+ * written atomically in the background whenever the list changes; writes that are requested while a previous write
+ * is in progress are coalesced.
+ * <p>
+ * The entries are available as an observable list that is only modified on the JavaFX Application Thread and can be
+ * bound directly to a menu. Whether a document is still available is checked in the background, each entry on its
+ * own virtual thread, so that stale network paths do not block the UI or the other entries. The result is reflected
+ * in the entry's {@link Status}.
+ */
+public final class RecentDocuments implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(RecentDocuments.class);
+
+    /**
+     * The first line of the file.
+     */
+    private static final String HEADER = "# recent documents v1";
+
+    /**
+     * The maximum time to wait for pending writes when closing.
+     */
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * Executor for file access; every operation runs on its own virtual thread.
+     */
+    private static final Executor IO_EXECUTOR = r -> Thread.ofVirtual().name("fx-recent-documents").start(r);
+
+    /**
+     * The availability of a document.
+     */
+    public enum Status {
+        /**
+         * Availability has not yet been checked, or cannot be checked for the URI scheme.
+         */
+        UNKNOWN,
+        /**
+         * The document exists.
+         */
+        AVAILABLE,
+        /**
+         * The document does not exist or cannot be accessed.
+         */
+        MISSING
+    }
+
+    /**
+     * An entry of the recently used documents list.
+     *
+     * @param uri          the document URI
+     * @param lastUsed     the time the document was last used
+     * @param status       the availability of the document
+     * @param size         the file size in bytes, or -1 if unknown
+     * @param lastModified the time the document was last modified, or {@code null} if unknown
+     */
+    public record Entry(URI uri, Instant lastUsed, Status status, long size, @Nullable Instant lastModified) {
+        private Entry(URI uri, Instant lastUsed) {
+            this(uri, lastUsed, Status.UNKNOWN, -1, null);
+        }
+    }
+
+    private final Path file;
+    private final int maxSize;
+    private final ObservableList<Entry> entries = FXCollections.observableArrayList();
+    private final ObservableList<Entry> unmodifiableEntries = FXCollections.unmodifiableObservableList(entries);
+    private final AtomicReference<@Nullable List<Entry>> pendingWrite = new AtomicReference<>();
+    private CompletableFuture<Void> writeTask = CompletableFuture.completedFuture(null);
+
+    /**
+     * Constructor.
+     *
+     * @param file    the file to store the list in
+     * @param maxSize the maximum number of entries
+     */
+    public RecentDocuments(Path file, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        }
+
+        this.file = file;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the entries, most recently used first.
+     * <p>
+     * The list is only modified on the JavaFX Application Thread.
+     *
+     * @return unmodifiable observable list of entries
+     */
+    public ObservableList<Entry> getEntries() {
+        return unmodifiableEntries;
+    }
+
+    /**
+     * Get the maximum number of entries.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Read the list from the file in the background and start checking the availability of the entries.
+     * <p>
+     * Entries added before loading completes are kept in front of the loaded entries, and the merged list is written
+     * back to the file. The file is not written before loading has completed, so this method should be called before
+     * the first entry is added.
+     *
+     * @return a future that completes when the entries have been added to the list
+     */
+    public CompletableFuture<Void> load() {
+        CompletableFuture<Void> task = CompletableFuture.supplyAsync(this::read, IO_EXECUTOR)
+                .thenAcceptAsync(this::merge, Platform::runLater);
+
+        // do not overwrite the file before it has been read and merged
+        synchronized (this) {
+            writeTask = writeTask.runAfterBoth(task.exceptionally(e -> null), () -> {});
+        }
+
+        return task;
+    }
+
+    /**
+     * Merge the loaded entries into the list. Runs on the FX thread.
+     *
+     * @param loaded the loaded entries
+     */
+    private void merge(List<Entry> loaded) {
+        // entries added while loading have not been written yet
+        boolean save = !entries.isEmpty();
+        List<Entry> merged = new ArrayList<>(entries);
+        loaded.stream()
+                .filter(e -> merged.stream().noneMatch(m -> m.uri().equals(e.uri())))
+                .forEach(merged::add);
+        setEntries(merged, save);
+        loaded.forEach(this::validate);
+    }
+
+    private List<Entry> read() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+
+        List<Entry> loaded = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null && loaded.size() < maxSize) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int tab = line.indexOf('\t');
+                try {
+                    loaded.add(new Entry(URI.create(line.substring(tab + 1)), Instant.ofEpochMilli(Long.parseLong(line.substring(0, tab)))));
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    LOG.warn("ignoring invalid line in {}: {}", file, line, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not read recent documents: " + file, e);
+        }
+        LOG.debug("read {} recent documents from {}", loaded.size(), file);
+        return loaded;
+    }
+
+    /**
+     * Add a document to the front of the list. If the document is already contained, it is moved to the front.
+     * <p>
+     * This method can be called from any thread.
+     *
+     * @param uri the document URI
+     */
+    public void add(URI uri) {
+        runOnFxThread(() -> {
+            Entry entry = new Entry(uri, Instant.now());
+            List<Entry> updated = new ArrayList<>(entries.size() + 1);
+            updated.add(entry);
+            entries.stream().filter(e -> !e.uri().equals(uri)).forEach(updated::add);
+            setEntries(updated, true);
+            validate(entry);
+        });
+    }
+
+    /**
+     * Remove a document from the list.
+     * <p>
+     * This method can be called from any thread.
+     *
+     * @param uri the document URI
+     */
+    public void remove(URI uri) {
+        runOnFxThread(() -> {
+            List<Entry> updated = new ArrayList<>(entries);
+            if (updated.removeIf(e -> e.uri().equals(uri))) {
+                setEntries(updated, true);
+            }
+        });
+    }
+
+    /**
+     * Remove all documents whose status is {@link Status#MISSING}.
+     * <p>
+     * This method can be called from any thread.
+     */
+    public void removeMissing() {
+        runOnFxThread(() -> {
+            List<Entry> updated = new ArrayList<>(entries);
+            if (updated.removeIf(e -> e.status() == Status.MISSING)) {
+                setEntries(updated, true);
+            }
+        });
+    }
+
+    /**
+     * Remove all documents from the list.
+     * <p>
+     * This method can be called from any thread.
+     */
+    public void clear() {
+        runOnFxThread(() -> setEntries(List.of(), true));
+    }
+
+    /**
+     * Replace the entries. Runs on the FX thread.
+     *
+     * @param updated the new entries, most recently used first
+     * @param save    true, to write the list to the file
+     */
+    private void setEntries(List<Entry> updated, boolean save) {
+        List<Entry> bounded = updated.size() > maxSize ? updated.subList(0, maxSize) : updated;
+        entries.setAll(bounded);
+        if (save) {
+            requestWrite(List.copyOf(bounded));
+        }
+    }
+
+    /**
+     * Check the availability of an entry in the background and update the list.
+     *
+     * @param entry the entry
+     */
+    private void validate(Entry entry) {
+        if (!"file".equalsIgnoreCase(entry.uri().getScheme())) {
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> check(entry), IO_EXECUTOR)
+                .thenAcceptAsync(checked -> {
+                    // the entry may have been removed or replaced in the meantime
+                    int idx = entries.indexOf(entry);
+                    if (idx >= 0) {
+                        entries.set(idx, checked);
+                    }
+                }, Platform::runLater);
+    }
+
+    private static Entry check(Entry entry) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(entry.uri()), BasicFileAttributes.class);
+            return new Entry(entry.uri(), entry.lastUsed(), Status.AVAILABLE, attributes.size(), attributes.lastModifiedTime().toInstant());
+        } catch (NoSuchFileException e) {
+            LOG.debug("recent document does not exist: {}", entry.uri());
+            return new Entry(entry.uri(), entry.lastUsed(), Status.MISSING, -1, null);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("recent document not accessible: {}", entry.uri(), e);
+            return new Entry(entry.uri(), entry.lastUsed(), Status.MISSING, -1, null);
+        }
+    }
+
+    /**
+     * Request writing the list to the file. Requests made while a write is pending replace the pending data.
+     *
+     * @param snapshot the entries to write
+     */
+    private void requestWrite(List<Entry> snapshot) {
+        if (pendingWrite.getAndSet(snapshot) == null) {
+            synchronized (this) {
+                writeTask = writeTask.thenRunAsync(this::writePending, IO_EXECUTOR);
+            }
+        }
+    }
+
+    private void writePending() {
+        List<Entry> snapshot = pendingWrite.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            AtomicFileWriter.write(file, out -> {
+                StringBuilder sb = new StringBuilder(HEADER).append('\n');
+                snapshot.forEach(e -> sb.append(e.lastUsed().toEpochMilli()).append('\t').append(e.uri()).append('\n'));
+                out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            });
+            LOG.debug("wrote {} recent documents to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            LOG.warn("could not write recent documents to {}", file, e);
+        }
+    }
+
+    /**
+     * Wait for pending writes to complete.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> task;
+        synchronized (this) {
+            task = writeTask;
+        }
+
+        try {
+            task.get(CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("could not write recent documents to {}", file, e);
+        }
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+}
@@ -0,0 +1,536 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.beans.value.ChangeListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * A write-ahead journal that records changes to documents so that unsaved changes can be restored after the
+ * application terminated abnormally.
+ * <p>
+ * Each attached document is journaled to its own file. Documents record their changes by calling
+ * {@link FxDocument#recordChange(byte[])}; the format of the change records is defined by the document. Records are
+ * appended by a single background thread: all records that have been submitted while the previous batch was being
+ * written are written in one go and synced to disk with a single fsync per file, so that recording changes never
+ * blocks the caller.
+ * <p>
+ * When a document is saved, its journal is cleared. When the journal is closed normally, all journal files are
+ * deleted, so that journal files found in the journal directory indicate that the application was not shut down
+ * properly. Use {@link #scan(Path)} to find these files.
+ */
+public final class RecoveryJournal implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(RecoveryJournal.class);
+    /**
+     * The magic number at the start of journal files ("FXR1").
+     */
+    private static final int MAGIC = 0x46585231;
+    /**
+     * The file extension used for journal files.
+     */
+    private static final String JOURNAL_EXTENSION = ".journal";
+    /**
+     * The prefix of journal file names; it is followed by the process id and a counter.
+     */
+    private static final String JOURNAL_PREFIX = "journal-";
+    /**
+     * The maximum number of operations processed in a single batch.
+     */
+    private static final int MAX_BATCH_SIZE = 4096;
+    /**
+     * The maximum time to wait for pending records to be written when closing the journal.
+     */
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    /**
+     * A document found in the journal directory.
+     *
+     * @param file         the journal file
+     * @param location     the location of the document at the time the changes were recorded
+     * @param lastModified the time the last change was recorded
+     * @param changes      the recorded changes, in the order they were recorded
+     */
+    public record RecoveredDocument(Path file, URI location, Instant lastModified, List<byte[]> changes) {}
+
+    /**
+     * Operations processed by the writer thread.
+     */
+    private sealed interface Op permits Append, Reset, Delete, Barrier {}
+
+    /**
+     * Append a change record.
+     */
+    private record Append(DocumentLog log, byte[] data) implements Op {}
+
+    /**
+     * Clear the journal of a document, i.e., after the document has been saved.
+     */
+    private record Reset(DocumentLog log, URI location) implements Op {}
+
+    /**
+     * Delete a journal file after all preceding records have been synced.
+     */
+    private record Delete(Path file) implements Op {}
+
+    /**
+     * Signal that all preceding operations have been completed.
+     */
+    private record Barrier(CountDownLatch latch) implements Op {}
+
+    private final Path directory;
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private final Map<FxDocument, DocumentLog> logs = new ConcurrentHashMap<>();
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Thread writer;
+
+    /**
+     * Constructor.
+     *
+     * @param directory the directory to store journal files in; it is created when the first change is recorded
+     */
+    public RecoveryJournal(Path directory) {
+        this.directory = directory;
+        this.writer = new Thread(this::writeLoop, "fx-recovery-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Find journal files left over from a previous run of the application.
+     * <p>
+     * Journal files that are currently in use by a running application instance, and journal files written by this
+     * process, are skipped. Files that do not contain any change records are deleted. The scan can run while this
+     * process is journaling changes.
+     *
+     * @param directory the journal directory
+     * @return list of recovered documents, ordered by the time of the last recorded change
+     * @throws IOException on error
+     */
+    public static List<RecoveredDocument> scan(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+
+        // journal files of this process may have been created but not yet locked
+        String ownPrefix = JOURNAL_PREFIX + ProcessHandle.current().pid() + "-";
+        List<RecoveredDocument> recovered = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + JOURNAL_EXTENSION)) {
+            for (Path file : files) {
+                if (file.getFileName().toString().startsWith(ownPrefix)) {
+                    continue;
+                }
+                try {
+                    RecoveredDocument document = read(file);
+                    if (document != null && document.changes().isEmpty()) {
+                        Files.deleteIfExists(file);
+                    } else if (document != null) {
+                        recovered.add(document);
+                    }
+                } catch (IOException e) {
+                    LOG.warn("could not read recovery journal {}", file, e);
+                }
+            }
+        }
+
+        recovered.sort(Comparator.comparing(RecoveredDocument::lastModified));
+        return recovered;
+    }
+
+    /**
+     * Read a journal file.
+     *
+     * @param file the journal file
+     * @return the recovered document, or {@code null} if the file is in use by another application instance
+     * @throws IOException if the file cannot be read or is not a journal file
+     */
+    private static @Nullable RecoveredDocument read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = tryLock(channel)) {
+            if (lock == null) {
+                LOG.debug("skipping recovery journal {} that is in use", file);
+                return null;
+            }
+
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a recovery journal: " + file);
+            }
+            URI location = URI.create(in.readUTF());
+
+            List<byte[]> changes = new ArrayList<>();
+            CRC32C crc = new CRC32C();
+            try {
+                while (true) {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < 0 || length > channel.size()) {
+                        break;
+                    }
+                    byte[] data = in.readNBytes(length);
+                    crc.reset();
+                    crc.update(data);
+                    if (data.length < length || (int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    changes.add(data);
+                }
+            } catch (EOFException e) {
+                // end of journal or incomplete last record
+            }
+
+            return new RecoveredDocument(file, location, lastModified.toInstant(), List.copyOf(changes));
+        }
+    }
+
+    private static @Nullable FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by this JVM
+            return null;
+        }
+    }
+
+    /**
+     * Delete the journal file of a recovered document.
+     *
+     * @param document the recovered document
+     * @throws IOException on error
+     */
+    public static void discard(RecoveredDocument document) throws IOException {
+        Files.deleteIfExists(document.file());
+    }
+
+    /**
+     * Start journaling the changes of a document.
+     *
+     * @param document the document
+     */
+    public void attach(FxDocument document) {
+        if (closed.get()) {
+            return;
+        }
+
+        logs.computeIfAbsent(document, d -> {
+            String name = JOURNAL_PREFIX + ProcessHandle.current().pid() + "-" + counter.incrementAndGet() + JOURNAL_EXTENSION;
+            DocumentLog log = new DocumentLog(d, directory.resolve(name), d.getLocation());
+            log.attach();
+            return log;
+        });
+    }
+
+    /**
+     * Continue journaling a document that has been restored from a recovered journal.
+     * <p>
+     * The recovered changes are copied to the document's journal, and the recovered journal file is deleted once the
+     * changes have been written.
+     *
+     * @param document  the restored document
+     * @param recovered the recovered journal the document has been restored from
+     */
+    public void restored(FxDocument document, RecoveredDocument recovered) {
+        attach(document);
+        DocumentLog log = logs.get(document);
+        if (log != null) {
+            recovered.changes().forEach(data -> submit(new Append(log, data)));
+            submit(new Delete(recovered.file()));
+        }
+    }
+
+    /**
+     * Stop journaling the changes of a document and delete its journal file.
+     *
+     * @param document the document
+     */
+    public void detach(FxDocument document) {
+        DocumentLog log = logs.remove(document);
+        if (log != null) {
+            log.detach();
+            submit(new Reset(log, document.getLocation()));
+        }
+    }
+
+    /**
+     * Wait until all changes recorded so far have been written to disk.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return true, if all changes have been written, false if the timeout elapsed
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        if (!submit(new Barrier(latch))) {
+            return true;
+        }
+        return latch.await(timeout, unit);
+    }
+
+    /**
+     * Close the journal and delete all journal files written by this instance.
+     */
+    @Override
+    public void close() {
+        if (closed.get()) {
+            return;
+        }
+
+        LOG.debug("closing recovery journal");
+        List.copyOf(logs.keySet()).forEach(this::detach);
+        try {
+            if (!flush(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("timeout while closing recovery journal");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed.set(true);
+        writer.interrupt();
+    }
+
+    private boolean submit(Op op) {
+        if (closed.get()) {
+            return false;
+        }
+        return queue.add(op);
+    }
+
+    private void writeLoop() {
+        List<Op> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                process(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            LOG.trace("recovery journal writer interrupted");
+        } finally {
+            logs.values().forEach(DocumentLog::closeFile);
+        }
+    }
+
+    /**
+     * Process a batch of operations. Records for the same document are written in a single write, and each file is
+     * synced once at the end of the batch.
+     *
+     * @param batch the operations to process
+     */
+    private void process(List<Op> batch) {
+        Map<DocumentLog, ByteArrayOutputStream> pending = new LinkedHashMap<>();
+        List<DocumentLog> touched = new ArrayList<>();
+        List<Path> deletions = new ArrayList<>();
+        List<CountDownLatch> barriers = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+
+        for (Op op : batch) {
+            if (op instanceof Append append) {
+                ByteArrayOutputStream buffer = pending.computeIfAbsent(append.log(), k -> new ByteArrayOutputStream());
+                writeRecord(buffer, crc, append.data());
+            } else if (op instanceof Reset reset) {
+                pending.remove(reset.log());
+                reset.log().reset(reset.location());
+            } else if (op instanceof Delete delete) {
+                deletions.add(delete.file());
+            } else if (op instanceof Barrier barrier) {
+                // write everything that precedes the barrier before releasing it
+                writePending(pending, touched);
+                barriers.add(barrier.latch());
+            }
+        }
+
+        writePending(pending, touched);
+        touched.forEach(DocumentLog::sync);
+
+        deletions.forEach(file -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("could not delete recovery journal {}", file, e);
+            }
+        });
+        barriers.forEach(CountDownLatch::countDown);
+    }
+
+    private static void writePending(Map<DocumentLog, ByteArrayOutputStream> pending, List<DocumentLog> touched) {
+        pending.forEach((log, buffer) -> {
+            if (log.write(buffer) && !touched.contains(log)) {
+                touched.add(log);
+            }
+        });
+        pending.clear();
+    }
+
+    private static void writeRecord(ByteArrayOutputStream buffer, CRC32C crc, byte[] data) {
+        crc.reset();
+        crc.update(data);
+        try {
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(data.length);
+            out.writeInt((int) crc.getValue());
+            out.write(data);
+        } catch (IOException e) {
+            // cannot happen for ByteArrayOutputStream
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The journal of a single document.
+     * <p>
+     * The file related methods of this class are only called from the writer thread.
+     */
+    private final class DocumentLog {
+        private final FxDocument document;
+        private final Path file;
+        private final ChangeListener<@Nullable Instant> savedListener;
+        private URI location;
+        private @Nullable FileChannel channel;
+        private @Nullable FileLock lock;
+
+        DocumentLog(FxDocument document, Path file, URI location) {
+            this.document = document;
+            this.file = file;
+            this.location = location;
+            this.savedListener = (v, o, n) -> submit(new Reset(this, document.getLocation()));
+        }
+
+        void attach() {
+            document.setChangeRecorder(data -> submit(new Append(this, data)));
+            document.lastSavedProperty().addListener(savedListener);
+        }
+
+        void detach() {
+            document.setChangeRecorder(null);
+            document.lastSavedProperty().removeListener(savedListener);
+        }
+
+        boolean write(ByteArrayOutputStream buffer) {
+            try {
+                FileChannel ch = channel;
+                if (ch == null) {
+                    ch = open();
+                }
+                ByteBuffer data = ByteBuffer.wrap(buffer.toByteArray());
+                while (data.hasRemaining()) {
+                    ch.write(data);
+                }
+                return true;
+            } catch (IOException e) {
+                LOG.warn("could not write recovery journal {}", file, e);
+                closeFile();
+                return false;
+            }
+        }
+
+        private FileChannel open() throws IOException {
+            Files.createDirectories(file.getParent());
+            FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            try {
+                lock = ch.tryLock();
+
+                ByteArrayOutputStream header = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(header);
+                out.writeInt(MAGIC);
+                out.writeUTF(location.toString());
+                ch.write(ByteBuffer.wrap(header.toByteArray()));
+            } catch (IOException e) {
+                ch.close();
+                throw e;
+            }
+            LOG.debug("created recovery journal {} for {}", file, location);
+            channel = ch;
+            return ch;
+        }
+
+        void sync() {
+            try {
+                if (channel != null) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                LOG.warn("could not sync recovery journal {}", file, e);
+            }
+        }
+
+        void reset(URI newLocation) {
+            closeFile();
+            location = newLocation;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LOG.warn("could not delete recovery journal {}", file, e);
+            }
+        }
+
+        void closeFile() {
+            try {
+                if (lock != null) {
+                    lock.release();
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                LOG.warn("could not close recovery journal {}", file, e);
+            } finally {
+                lock = null;
+                channel = null;
+            }
+        }
+    }
+}
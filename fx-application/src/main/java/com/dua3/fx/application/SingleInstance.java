@@ -0,0 +1,329 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Single-instance support using a Unix domain socket in the application's data folder.
+ * <p>
+ * The running instance listens on the socket. A second launch connects to the socket, sends the documents passed on
+ * its command line, and exits before the JavaFX toolkit is initialized. Call
+ * {@link #forwardToRunningInstance(Class, String...)} from the application's {@code main()} method before calling
+ * {@code launch()}, and enable single-instance mode in the application using
+ * {@link FxApplication#setSingleInstance(boolean)}:
+ * <pre>{@code
+ * public static void main(String[] args) {
+ *     if (SingleInstance.forwardToRunningInstance(MyApplication.class, args)) {
+ *         return;
+ *     }
+ *     launch(args);
+ * }
+ * }</pre>
+ * A socket file that is left over after the application terminated abnormally is detected and replaced.
+ */
+public final class SingleInstance implements AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(SingleInstance.class);
+
+    /**
+     * The name of the socket file in the application's data folder.
+     */
+    public static final String SOCKET_NAME = "instance.sock";
+
+    /**
+     * The magic number at the start of each message ("FXI1").
+     */
+    private static final int MAGIC = 0x46584931;
+
+    /**
+     * The acknowledgement sent by the running instance after the documents have been accepted.
+     */
+    private static final int ACK = 1;
+
+    /**
+     * The maximum time to wait for the running instance to acknowledge the request.
+     */
+    private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(2);
+
+    /**
+     * The maximum time the running instance waits for a request to be completed before closing the connection.
+     */
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+
+    /**
+     * The maximum length in bytes of a Unix domain socket path on macOS; Linux allows 108 bytes.
+     */
+    private static final int MAX_SOCKET_PATH_LENGTH = 104;
+
+    private final Path socket;
+    private final ServerSocketChannel server;
+
+    private SingleInstance(Path socket, ServerSocketChannel server) {
+        this.socket = socket;
+        this.server = server;
+    }
+
+    /**
+     * Forward the documents passed on the command line to a running instance of the application.
+     * <p>
+     * The arguments are converted to URIs in the same way as by {@link FxApplication#getDocumentArguments()}, so that
+     * relative paths are resolved against the working directory of this process.
+     *
+     * @param appClass the application class
+     * @param args     the command line arguments
+     * @return true, if a running instance accepted the request and this process should exit, false if no instance
+     *         is running and the application should be launched
+     */
+    public static boolean forwardToRunningInstance(Class<? extends FxApplication<?, ?>> appClass, String... args) {
+        Path socket;
+        try {
+            socket = FxApplication.resolveDataDir(appClass).resolve(SOCKET_NAME);
+        } catch (RuntimeException e) {
+            LOG.warn("could not determine the application data folder", e);
+            return false;
+        }
+
+        List<URI> uris = new ArrayList<>(args.length);
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            try {
+                uris.add(FxApplication.toDocumentUri(arg));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("ignoring invalid document argument: {}", arg, e);
+            }
+        }
+
+        return send(socket, uris);
+    }
+
+    /**
+     * Send documents to the instance listening on the socket.
+     *
+     * @param socket the socket file
+     * @param uris   the document URIs
+     * @return true, if the running instance acknowledged the request
+     */
+    static boolean send(Path socket, List<URI> uris) {
+        if (!Files.exists(socket)) {
+            return false;
+        }
+
+        // blocking channel operations are interruptible; use a watchdog to bound the time waiting for a hung instance
+        Thread caller = Thread.currentThread();
+        Thread watchdog = startWatchdog(FORWARD_TIMEOUT, caller::interrupt);
+
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(MAGIC);
+            out.writeInt(uris.size());
+            for (URI uri : uris) {
+                out.writeUTF(uri.toString());
+            }
+            out.flush();
+
+            boolean accepted = new DataInputStream(Channels.newInputStream(channel)).readInt() == ACK;
+            LOG.debug("forwarded {} documents to running instance: {}", uris.size(), accepted);
+            return accepted;
+        } catch (IOException e) {
+            LOG.debug("no running instance at {}", socket, e);
+            return false;
+        } finally {
+            watchdog.interrupt();
+            try {
+                // make sure the watchdog cannot interrupt the caller after the interrupt has been cleared
+                watchdog.join();
+            } catch (InterruptedException e) {
+                LOG.trace("interrupted while waiting for the watchdog", e);
+            }
+            // clear the interrupt in case the watchdog fired after the request completed
+            //noinspection ResultOfMethodCallIgnored
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Start a virtual thread that runs an action when the timeout expires. Interrupt the returned thread to cancel
+     * the action.
+     *
+     * @param timeout the timeout
+     * @param action  the action to run when the timeout expires
+     * @return the watchdog thread
+     */
+    private static Thread startWatchdog(Duration timeout, Runnable action) {
+        return Thread.ofVirtual().name("fx-single-instance-watchdog").start(() -> {
+            try {
+                Thread.sleep(timeout.toMillis());
+                action.run();
+            } catch (InterruptedException e) {
+                // request completed in time
+            }
+        });
+    }
+
+    /**
+     * Listen for requests from other instances.
+     *
+     * @param socket  the socket file
+     * @param handler the handler for forwarded documents; it is called on a background thread, possibly
+     *                concurrently for requests from different instances
+     * @return the listening instance, or an empty Optional if another instance is already listening or the socket
+     *         could not be created
+     */
+    static Optional<SingleInstance> listen(Path socket, Consumer<? super List<URI>> handler) {
+        try {
+            ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            try {
+                if (Files.exists(socket)) {
+                    if (isListening(socket)) {
+                        LOG.info("another instance is already running: {}", socket);
+                        server.close();
+                        return Optional.empty();
+                    }
+                    LOG.debug("removing stale socket file: {}", socket);
+                    Files.delete(socket);
+                }
+                server.bind(UnixDomainSocketAddress.of(socket));
+            } catch (IOException | RuntimeException e) {
+                server.close();
+                throw e;
+            }
+
+            SingleInstance instance = new SingleInstance(socket, server);
+            Thread.ofVirtual().name("fx-single-instance").start(() -> instance.accept(handler));
+            LOG.debug("listening for other instances on {}", socket);
+            return Optional.of(instance);
+        } catch (IOException | RuntimeException e) {
+            int length = socket.toString().getBytes(StandardCharsets.UTF_8).length;
+            if (length >= MAX_SOCKET_PATH_LENGTH) {
+                LOG.warn("could not enable single instance mode: the socket path has {} bytes, but Unix domain socket"
+                        + " paths are limited to {} bytes on some platforms: {}", length, MAX_SOCKET_PATH_LENGTH - 1, socket, e);
+            } else {
+                LOG.warn("could not enable single instance mode: {}", socket, e);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isListening(Path socket) {
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            return channel.isConnected();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Accept loop. Each connection is handled on its own virtual thread, so that a client that stalls does not block
+     * requests from other instances.
+     *
+     * @param handler the handler for forwarded documents
+     */
+    private void accept(Consumer<? super List<URI>> handler) {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                Thread.ofVirtual().name("fx-single-instance-client").start(() -> handle(channel, handler));
+            } catch (ClosedChannelException e) {
+                LOG.trace("single instance socket closed", e);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("error accepting request from another instance", e);
+            }
+        }
+    }
+
+    /**
+     * Handle a single request. The connection is closed if the request is not completed within
+     * {@link #REQUEST_TIMEOUT}.
+     *
+     * @param channel the connection
+     * @param handler the handler for forwarded documents
+     */
+    private void handle(SocketChannel channel, Consumer<? super List<URI>> handler) {
+        Thread watchdog = startWatchdog(REQUEST_TIMEOUT, () -> {
+            LOG.warn("request from another instance timed out on {}", socket);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.trace("error closing connection", e);
+            }
+        });
+
+        try (channel) {
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            if (in.readInt() != MAGIC) {
+                LOG.warn("ignoring invalid request on {}", socket);
+                return;
+            }
+
+            int n = in.readInt();
+            List<URI> uris = new ArrayList<>(Math.max(0, Math.min(n, 1024)));
+            for (int i = 0; i < n; i++) {
+                uris.add(URI.create(in.readUTF()));
+            }
+            LOG.debug("received {} documents from another instance", uris.size());
+
+            handler.accept(uris);
+
+            DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+            out.writeInt(ACK);
+            out.flush();
+        } catch (ClosedChannelException e) {
+            LOG.trace("connection closed", e);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("error handling request from another instance", e);
+        } finally {
+            watchdog.interrupt();
+        }
+    }
+
+    /**
+     * Stop listening and remove the socket file.
+     */
+    @Override
+    public void close() {
+        try {
+            server.close();
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            LOG.warn("could not remove socket file {}", socket, e);
+        }
+    }
+}
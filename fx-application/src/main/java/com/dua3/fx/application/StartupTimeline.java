@@ -0,0 +1,202 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the timing of the phases of application startup.
+ * <p>
+ * All times are measured relative to the creation of the timeline, which happens when the application instance is
+ * constructed. Each completed phase is also emitted as a JFR event of type
+ * {@code com.dua3.fx.application.StartupPhase}, so that startup can be analyzed in flight recordings.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class StartupTimeline {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(StartupTimeline.class);
+
+    /**
+     * The name of the phase that ends when the first frame has been laid out.
+     */
+    public static final String FIRST_FRAME = "firstFrame";
+
+    private final long origin = System.nanoTime();
+    private final List<Phase> phases = new CopyOnWriteArrayList<>();
+    private final Scope firstFrame = new Scope(FIRST_FRAME);
+    private volatile long firstFrameNanos = -1;
+
+    /**
+     * A completed startup phase.
+     *
+     * @param name          the phase name
+     * @param startNanos    the start of the phase in nanoseconds, relative to the start of the timeline
+     * @param durationNanos the duration of the phase in nanoseconds
+     * @param thread        the name of the thread that executed the phase
+     */
+    public record Phase(String name, long startNanos, long durationNanos, String thread) {
+        /**
+         * Get the duration of this phase.
+         *
+         * @return the duration
+         */
+        public Duration duration() {
+            return Duration.ofNanos(durationNanos);
+        }
+    }
+
+    /**
+     * A running phase. Closing the scope ends the phase.
+     */
+    public final class Scope implements AutoCloseable {
+        private final String name;
+        private final long start;
+        private final StartupPhaseEvent event;
+        private boolean closed;
+
+        private Scope(String name) {
+            this.name = name;
+            this.event = new StartupPhaseEvent();
+            this.event.begin();
+            this.start = System.nanoTime();
+        }
+
+        /**
+         * End the phase. Calling this method more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            record(name, start, System.nanoTime(), event);
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    StartupTimeline() {
+        // nothing to do
+    }
+
+    /**
+     * Start a phase. Use in a try-with-resources statement:
+     * <pre>{@code
+     * try (var phase = timeline.phase("loadConfiguration")) {
+     *     ...
+     * }
+     * }</pre>
+     *
+     * @param name the phase name
+     * @return the scope of the phase
+     */
+    public Scope phase(String name) {
+        return new Scope(name);
+    }
+
+    /**
+     * Record the first frame of the application. Only the first call has an effect.
+     */
+    synchronized void markFirstFrame() {
+        if (firstFrameNanos >= 0) {
+            return;
+        }
+
+        firstFrame.close();
+        firstFrameNanos = getPhase(FIRST_FRAME).map(p -> p.startNanos() + p.durationNanos()).orElse(0L);
+
+        LOG.info("first frame after {} ms", firstFrameNanos / 1_000_000);
+        if (LOG.isDebugEnabled()) {
+            phases.forEach(p -> LOG.debug("startup phase {}: {} ms at {} ms [{}]",
+                    p.name(), p.durationNanos() / 1_000_000.0, p.startNanos() / 1_000_000.0, p.thread()));
+        }
+    }
+
+    private void record(String name, long start, long end, StartupPhaseEvent event) {
+        Phase phase = new Phase(name, start - origin, end - start, Thread.currentThread().getName());
+        phases.add(phase);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = name;
+            event.sinceStart = phase.startNanos();
+            event.commit();
+        }
+    }
+
+    /**
+     * Get the completed phases in the order they completed.
+     *
+     * @return list of completed phases
+     */
+    public List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * Get a completed phase by name.
+     *
+     * @param name the phase name
+     * @return an Optional holding the first completed phase with the given name, or an empty Optional
+     */
+    public Optional<Phase> getPhase(String name) {
+        return phases.stream().filter(p -> p.name().equals(name)).findFirst();
+    }
+
+    /**
+     * Get the time from the creation of the application instance to the first frame.
+     *
+     * @return an Optional holding the time to first frame, or an empty Optional if no frame has been shown yet
+     */
+    public Optional<Duration> getTimeToFirstFrame() {
+        long nanos = firstFrameNanos;
+        return nanos < 0 ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+    }
+
+    /**
+     * JFR event for a startup phase.
+     */
+    @Name("com.dua3.fx.application.StartupPhase")
+    @Label("Startup Phase")
+    @Category({"dua3", "FX Application"})
+    @Description("A phase of the application startup")
+    static final class StartupPhaseEvent extends Event {
+        @Label("Phase")
+        String phase = "";
+
+        @Label("Since Start")
+        @Description("Time from the creation of the application instance to the start of the phase")
+        @Timespan(Timespan.NANOSECONDS)
+        long sinceStart;
+    }
+}
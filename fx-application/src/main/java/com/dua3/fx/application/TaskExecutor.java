@@ -0,0 +1,392 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor with bounded parallelism and two priority lanes.
+ * <p>
+ * Work submitted with {@link Priority#UI} is always taken before work submitted with {@link Priority#BULK}. When
+ * the parallelism is greater than one, bulk work never occupies all workers, so that UI work can start without
+ * waiting for bulk work to complete.
+ * <p>
+ * {@link Task}s submitted using {@link #submit(Task, Priority)} are added to an observable task list when they are
+ * submitted and removed when they are done. The list is only modified on the JavaFX Application Thread.
+ * <p>
+ * Aggregated progress, throughput, and latency of all submitted work are available through {@link #getProgress()}.
+ */
+public final class TaskExecutor implements Executor, AutoCloseable {
+
+    /**
+     * Logger
+     */
+    private static final Logger LOG = LogManager.getLogger(TaskExecutor.class);
+
+    /**
+     * The priority lane for submitted work.
+     */
+    public enum Priority {
+        /**
+         * Work the user is waiting for, e.g., opening a document.
+         */
+        UI,
+        /**
+         * Background work that can be delayed, e.g., indexing or exporting.
+         */
+        BULK
+    }
+
+    private final int parallelism;
+    private final int maxBulk;
+    private final ThreadFactory threadFactory;
+    private final @Nullable ObservableList<Task<?>> tasks;
+    private final TaskProgress progress = new TaskProgress(TaskProgress.DEFAULT_UPDATE_INTERVAL);
+
+    private final Object lock = new Object();
+    private final Queue<Runnable> uiQueue = new ArrayDeque<>();
+    private final Queue<Runnable> bulkQueue = new ArrayDeque<>();
+    private final Set<Thread> workers = new HashSet<>();
+    private int runningBulk = 0;
+    private boolean shutdown = false;
+
+    /**
+     * Constructor.
+     *
+     * @param parallelism    the maximum number of tasks to run at the same time
+     * @param virtualThreads true, to run tasks on virtual threads, false to use platform daemon threads
+     * @param tasks          the list to add submitted {@link Task}s to while they are pending or running, or
+     *                       {@code null}
+     */
+    public TaskExecutor(int parallelism, boolean virtualThreads, @Nullable ObservableList<Task<?>> tasks) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+
+        this.parallelism = parallelism;
+        this.maxBulk = Math.max(1, parallelism - 1);
+        this.tasks = tasks;
+
+        if (virtualThreads) {
+            this.threadFactory = Thread.ofVirtual().name("fx-task-", 0).factory();
+        } else {
+            AtomicInteger n = new AtomicInteger();
+            this.threadFactory = r -> {
+                Thread thread = new Thread(r, "fx-task-" + n.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            };
+        }
+    }
+
+    /**
+     * Get the maximum number of tasks that run at the same time.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Get the aggregated progress of the work submitted to this executor.
+     *
+     * @return the progress
+     */
+    public TaskProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Execute work with {@link Priority#BULK} priority.
+     *
+     * @param command the work to execute
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    @Override
+    public void execute(Runnable command) {
+        execute(command, Priority.BULK);
+    }
+
+    /**
+     * Execute work with the given priority.
+     *
+     * @param command  the work to execute
+     * @param priority the priority
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    public void execute(Runnable command, Priority priority) {
+        synchronized (lock) {
+            if (shutdown) {
+                throw new RejectedExecutionException("executor has been shut down");
+            }
+            (priority == Priority.UI ? uiQueue : bulkQueue).add(command);
+            progress.submitted();
+            if (workers.size() < parallelism) {
+                startWorker();
+            }
+        }
+    }
+
+    /**
+     * Start a new worker. Must be called while holding the lock.
+     */
+    private void startWorker() {
+        Thread worker = threadFactory.newThread(this::work);
+        workers.add(worker);
+        worker.start();
+    }
+
+    /**
+     * Get an {@link Executor} that submits work to this executor with the given priority.
+     *
+     * @param priority the priority
+     * @return executor for the given priority
+     */
+    public Executor executor(Priority priority) {
+        return command -> execute(command, priority);
+    }
+
+    /**
+     * Submit a task.
+     * <p>
+     * The task is added to the task list passed to the constructor and removed when it is done.
+     *
+     * @param <T>      the result type
+     * @param task     the task
+     * @param priority the priority
+     * @return the task
+     * @throws RejectedExecutionException if the executor has been shut down
+     */
+    public <T> Task<T> submit(Task<T> task, Priority priority) {
+        ObservableList<Task<?>> list = tasks;
+        if (list == null) {
+            execute(task, priority);
+            return task;
+        }
+
+        runOnFxThread(() -> list.add(task));
+        try {
+            execute(new TrackedTask(task, list), priority);
+        } catch (RejectedExecutionException e) {
+            runOnFxThread(() -> list.remove(task));
+            throw e;
+        }
+        return task;
+    }
+
+    /**
+     * A task that is removed from the task list when done.
+     *
+     * @param task the task
+     * @param list the task list
+     */
+    private record TrackedTask(Task<?> task, ObservableList<Task<?>> list) implements Runnable {
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                // the task has already posted its state changes to the FX thread, so the removal runs after them
+                Platform.runLater(() -> list.remove(task));
+            }
+        }
+
+        void cancel() {
+            task.cancel(false);
+            Platform.runLater(() -> list.remove(task));
+        }
+    }
+
+    private static void runOnFxThread(Runnable action) {
+        if (Platform.isFxApplicationThread()) {
+            action.run();
+        } else {
+            Platform.runLater(action);
+        }
+    }
+
+    /**
+     * Worker loop: run queued work until there is nothing left that this worker may take.
+     */
+    private void work() {
+        try {
+            runQueuedWork();
+        } finally {
+            synchronized (lock) {
+                // the worker is still registered if it was terminated by an Error thrown by the work
+                if (workers.remove(Thread.currentThread())) {
+                    LOG.warn("worker terminated abnormally");
+                    if (!uiQueue.isEmpty() || !bulkQueue.isEmpty()) {
+                        startWorker();
+                    }
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+
+    private void runQueuedWork() {
+        while (true) {
+            Runnable command;
+            boolean bulk;
+            synchronized (lock) {
+                command = uiQueue.poll();
+                bulk = false;
+                if (command == null && runningBulk < maxBulk) {
+                    command = bulkQueue.poll();
+                    bulk = command != null;
+                }
+                if (command == null) {
+                    workers.remove(Thread.currentThread());
+                    lock.notifyAll();
+                    return;
+                }
+                if (bulk) {
+                    runningBulk++;
+                }
+            }
+
+            long start = progress.started();
+            boolean success = false;
+            try {
+                command.run();
+                success = succeeded(command);
+            } catch (RuntimeException e) {
+                LOG.warn("uncaught exception in task", e);
+            } finally {
+                progress.completed(start, success);
+                if (bulk) {
+                    synchronized (lock) {
+                        runningBulk--;
+                    }
+                }
+                // clear the interrupt flag so that it does not leak into the next task
+                //noinspection ResultOfMethodCallIgnored
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Check whether work completed successfully. Tasks and other futures catch exceptions thrown by the work, so the
+     * outcome is taken from the future.
+     *
+     * @param command the work that has been run
+     * @return true, if the work completed normally
+     */
+    private static boolean succeeded(Runnable command) {
+        Runnable r = command instanceof TrackedTask t ? t.task() : command;
+        if (r instanceof Future<?> f && f.isDone()) {
+            try {
+                f.get();
+            } catch (ExecutionException | CancellationException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Shut down the executor. Work that has already been submitted is still executed, new work is rejected.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+    }
+
+    /**
+     * Shut down the executor, cancel queued work, and interrupt running work.
+     */
+    public void shutdownNow() {
+        synchronized (lock) {
+            shutdown = true;
+            for (Queue<Runnable> queue : List.of(uiQueue, bulkQueue)) {
+                queue.forEach(command -> {
+                    if (command instanceof TrackedTask t) {
+                        t.cancel();
+                    } else if (command instanceof Future<?> f) {
+                        f.cancel(false);
+                    }
+                });
+                progress.discarded(queue.size());
+                queue.clear();
+            }
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+    /**
+     * Wait until all work has completed after a shutdown.
+     *
+     * @param timeout the maximum time to wait
+     * @return true, if all work has completed, false if the timeout elapsed
+     * @throws InterruptedException if the current thread was interrupted while waiting
+     */
+    public boolean awaitTermination(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (lock) {
+            while (!workers.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Shut down the executor and wait up to five seconds for submitted work to complete. Work that is still running
+     * after that is interrupted.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            if (!awaitTermination(Duration.ofSeconds(5))) {
+                LOG.warn("tasks did not complete in time, interrupting");
+                shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
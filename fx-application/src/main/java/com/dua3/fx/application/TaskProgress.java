@@ -0,0 +1,327 @@
+// Copyright 2019 Axel Howind
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.dua3.fx.application;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Aggregated progress of the work run by a {@link TaskExecutor}.
+ * <p>
+ * Counters are updated without locking by the threads running the work. The JavaFX properties are updated from the
+ * counters on the JavaFX Application Thread at most once per update interval, no matter how many items complete, and
+ * once more after the last change. A batch starts when work is submitted after no work has been pending for at least
+ * one update interval; work done, total work, throughput, and ETA refer to the current batch. The latency histogram
+ * covers all work since creation.
+ */
+public final class TaskProgress {
+
+    /**
+     * The default interval between updates of the JavaFX properties.
+     */
+    public static final Duration DEFAULT_UPDATE_INTERVAL = Duration.ofMillis(200);
+
+    /**
+     * Smoothing factor for the throughput average.
+     */
+    private static final double RATE_SMOOTHING = 0.3;
+
+    /**
+     * Scheduler for delayed property updates, shared by all instances.
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "fx-task-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long updateIntervalNanos;
+
+    // counters, updated from any thread
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicReference<Batch> batch = new AtomicReference<>(new Batch(0, 0));
+    private volatile long idleSince = System.nanoTime();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(64);
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+    private volatile long lastUpdate = 0;
+
+    // throughput calculation; only accessed on the FX thread
+    private @Nullable Batch rateBatch = null;
+    private long lastRateTime = 0;
+    private long lastRateCompleted = 0;
+    private double rate = 0;
+
+    private final ReadOnlyLongWrapper workDone = new ReadOnlyLongWrapper(this, "workDone", 0);
+    private final ReadOnlyLongWrapper totalWork = new ReadOnlyLongWrapper(this, "totalWork", 0);
+    private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(this, "progress", 0);
+    private final ReadOnlyDoubleWrapper itemsPerSecond = new ReadOnlyDoubleWrapper(this, "itemsPerSecond", 0);
+    private final ReadOnlyObjectWrapper<@Nullable Duration> eta = new ReadOnlyObjectWrapper<>(this, "eta", null);
+
+    /**
+     * The counter values at the start of a batch.
+     *
+     * @param baseSubmitted the number of submitted items before the batch
+     * @param baseCompleted the number of completed items before the batch
+     */
+    private record Batch(long baseSubmitted, long baseCompleted) {}
+
+    /**
+     * A snapshot of the latency histogram.
+     * <p>
+     * Bucket {@code i} counts the work items with a latency of at least 2<sup>i</sup> and less than
+     * 2<sup>i+1</sup> nanoseconds; bucket 0 also contains latencies of zero.
+     *
+     * @param buckets the bucket counts
+     */
+    public record LatencyHistogram(long[] buckets) {
+        /**
+         * Get the total number of recorded latencies.
+         *
+         * @return the number of recorded latencies
+         */
+        public long count() {
+            long n = 0;
+            for (long b : buckets) {
+                n += b;
+            }
+            return n;
+        }
+
+        /**
+         * Get an upper bound for the given percentile of recorded latencies.
+         *
+         * @param percentile the percentile, between 0 and 100
+         * @return the upper bound of the bucket containing the percentile, or {@link Duration#ZERO} if the histogram
+         *         is empty
+         */
+        public Duration percentile(double percentile) {
+            long n = count();
+            if (n == 0) {
+                return Duration.ZERO;
+            }
+
+            long threshold = (long) Math.ceil(n * Math.clamp(percentile, 0.0, 100.0) / 100.0);
+            long sum = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                sum += buckets[i];
+                if (sum >= threshold && sum > 0) {
+                    return Duration.ofNanos(i >= 62 ? Long.MAX_VALUE : (2L << i) - 1);
+                }
+            }
+            return Duration.ofNanos(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param updateInterval the minimum interval between updates of the JavaFX properties
+     */
+    public TaskProgress(Duration updateInterval) {
+        this.updateIntervalNanos = updateInterval.toNanos();
+    }
+
+    /**
+     * Record that a work item has been submitted.
+     */
+    void submitted() {
+        long s = submitted.incrementAndGet();
+        if (pending.getAndIncrement() == 0 && System.nanoTime() - idleSince >= updateIntervalNanos) {
+            // the previous batch is done and its completion has been shown, so this item starts a new batch
+            batch.set(new Batch(s - 1, completed.get()));
+        }
+        requestUpdate();
+    }
+
+    /**
+     * Record that submitted work items have been discarded without being run.
+     *
+     * @param n the number of discarded items
+     */
+    void discarded(long n) {
+        if (n > 0) {
+            submitted.addAndGet(-n);
+            if (pending.addAndGet(-n) == 0) {
+                idleSince = System.nanoTime();
+            }
+            requestUpdate();
+        }
+    }
+
+    /**
+     * Record that a work item has been started.
+     *
+     * @return the start time to pass to {@link #completed(long, boolean)}
+     */
+    long started() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record that a work item has completed.
+     *
+     * @param startNanos the value returned by {@link #started()}
+     * @param success    true, if the item completed normally
+     */
+    void completed(long startNanos, boolean success) {
+        long latency = Math.max(0, System.nanoTime() - startNanos);
+        latencyBuckets.incrementAndGet(latency == 0 ? 0 : 63 - Long.numberOfLeadingZeros(latency));
+        if (!success) {
+            failed.incrementAndGet();
+        }
+        completed.incrementAndGet();
+        if (pending.decrementAndGet() == 0) {
+            idleSince = System.nanoTime();
+        }
+        requestUpdate();
+    }
+
+    /**
+     * Request an update of the properties, respecting the update interval.
+     */
+    private void requestUpdate() {
+        if (!updateScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        long delay = lastUpdate + updateIntervalNanos - System.nanoTime();
+        if (delay <= 0) {
+            Platform.runLater(this::update);
+        } else {
+            SCHEDULER.schedule(() -> Platform.runLater(this::update), delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Update the properties from the counters. Runs on the FX thread.
+     */
+    private void update() {
+        // reset the flag first so that changes made during the update trigger another update
+        updateScheduled.set(false);
+
+        long now = System.nanoTime();
+        lastUpdate = now;
+
+        Batch b = batch.get();
+        long s = submitted.get();
+        long c = completed.get();
+        long total = Math.max(0, s - b.baseSubmitted());
+        long done = Math.clamp(c - b.baseCompleted(), 0, total);
+
+        if (b != rateBatch) {
+            // new batch, restart throughput calculation
+            rateBatch = b;
+            rate = 0;
+            lastRateTime = now;
+            lastRateCompleted = c;
+        } else if (now > lastRateTime) {
+            double current = (c - lastRateCompleted) * 1.0e9 / (now - lastRateTime);
+            rate = rate == 0 ? current : RATE_SMOOTHING * current + (1 - RATE_SMOOTHING) * rate;
+            lastRateTime = now;
+            lastRateCompleted = c;
+        }
+
+        workDone.set(done);
+        totalWork.set(total);
+        progress.set(total == 0 ? 0 : (double) done / total);
+        itemsPerSecond.set(rate);
+        eta.set(rate > 0 && total > done ? Duration.ofNanos((long) ((total - done) / rate * 1.0e9)) : null);
+    }
+
+    /**
+     * Get the number of failed work items since creation.
+     *
+     * @return the number of failed work items
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Get a snapshot of the latency histogram.
+     *
+     * @return the latency histogram
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        long[] buckets = new long[latencyBuckets.length()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = latencyBuckets.get(i);
+        }
+        return new LatencyHistogram(buckets);
+    }
+
+    /**
+     * The number of completed work items of the current batch.
+     *
+     * @return the work done property
+     */
+    public ReadOnlyLongProperty workDoneProperty() {
+        return workDone.getReadOnlyProperty();
+    }
+
+    /**
+     * The number of work items of the current batch.
+     *
+     * @return the total work property
+     */
+    public ReadOnlyLongProperty totalWorkProperty() {
+        return totalWork.getReadOnlyProperty();
+    }
+
+    /**
+     * The progress of the current batch, between 0 and 1.
+     *
+     * @return the progress property
+     */
+    public ReadOnlyDoubleProperty progressProperty() {
+        return progress.getReadOnlyProperty();
+    }
+
+    /**
+     * The smoothed throughput in work items per second.
+     *
+     * @return the throughput property
+     */
+    public ReadOnlyDoubleProperty itemsPerSecondProperty() {
+        return itemsPerSecond.getReadOnlyProperty();
+    }
+
+    /**
+     * The estimated time until the current batch is done, or {@code null} if unknown.
+     *
+     * @return the ETA property
+     */
+    public ReadOnlyObjectProperty<@Nullable Duration> etaProperty() {
+        return eta.getReadOnlyProperty();
+    }
+}
@@ -31,6 +31,8 @@ open module com.dua3.fx.application {
     requires org.apache.logging.log4j;
 
     requires java.prefs;
+    requires static java.desktop;
+    requires jdk.jfr;
     requires javafx.base;
     requires javafx.controls;
     requires org.jspecify;
@@ -0,0 +1,175 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for AutosaveService.
+ */
+class AutosaveServiceTest extends FxTestBase {
+
+    /**
+     * Test that a snapshot is written when a document becomes dirty and removed when the document is saved.
+     */
+    @Test
+    void testIdleAutosave(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("autosave");
+        FxDocumentTest.StreamingDocument doc = new FxDocumentTest.StreamingDocument("content");
+
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ZERO, Duration.ofMillis(50))) {
+            service.watch(doc);
+            Assertions.assertTrue(service.getSnapshot(doc).isEmpty(), "No snapshot should exist for a clean document");
+
+            doc.dirtyProperty().set(true);
+            Assertions.assertTrue(await(() -> service.getSnapshot(doc).isPresent()), "Snapshot should be written");
+            Path snapshot = service.getSnapshot(doc).orElseThrow();
+            Assertions.assertEquals("content", Files.readString(snapshot), "Snapshot should contain the document content");
+
+            doc.dirtyProperty().set(false);
+            doc.saveAs(dir.resolve("document.txt").toUri());
+            Assertions.assertTrue(await(() -> !Files.exists(snapshot)), "Snapshot should be deleted after saving");
+        }
+    }
+
+    /**
+     * Test that changes to a document that is already dirty are autosaved when the document is idle.
+     */
+    @Test
+    void testIdleAutosaveAfterChange(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("autosave");
+        FxDocumentTest.StreamingDocument doc = new FxDocumentTest.StreamingDocument("first");
+
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ZERO, Duration.ofMillis(50))) {
+            service.watch(doc);
+            doc.dirtyProperty().set(true);
+            Assertions.assertTrue(await(() -> service.getSnapshot(doc).isPresent()), "Snapshot should be written");
+            Path snapshot = service.getSnapshot(doc).orElseThrow();
+            Assertions.assertTrue(await(() -> readSnapshot(snapshot).equals("first")), "Snapshot should be complete");
+
+            doc.setContent("second");
+            Assertions.assertTrue(await(() -> readSnapshot(snapshot).equals("second")),
+                    "Snapshot should be updated after a change to a dirty document");
+        }
+    }
+
+    /**
+     * Test that the snapshot of a document is deleted when it is no longer watched or the service is closed.
+     */
+    @Test
+    void testSnapshotDeletedOnUnwatchAndClose(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("autosave");
+        FxDocumentTest.StreamingDocument doc1 = new FxDocumentTest.StreamingDocument("one");
+        FxDocumentTest.StreamingDocument doc2 = new FxDocumentTest.StreamingDocument("two");
+        doc1.dirtyProperty().set(true);
+        doc2.dirtyProperty().set(true);
+
+        Path snapshot1;
+        Path snapshot2;
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ZERO, Duration.ofMillis(20))) {
+            service.watch(doc1);
+            service.watch(doc2);
+            Assertions.assertTrue(await(() -> service.getSnapshot(doc1).isPresent() && service.getSnapshot(doc2).isPresent()),
+                    "Snapshots should be written");
+            snapshot1 = service.getSnapshot(doc1).orElseThrow();
+            snapshot2 = service.getSnapshot(doc2).orElseThrow();
+
+            service.unwatch(doc1);
+            Assertions.assertTrue(await(() -> !Files.exists(snapshot1)), "Snapshot should be deleted on unwatch");
+        }
+        Assertions.assertFalse(Files.exists(snapshot2), "Snapshot should be deleted when the service is closed");
+        try (var files = Files.list(snapshots)) {
+            Assertions.assertEquals(0, files.count(), "No files should be left in the snapshot directory");
+        }
+    }
+
+    /**
+     * Test that snapshots left over by processes that are no longer running are listed together with the document
+     * location, and that unusable leftovers are deleted.
+     */
+    @Test
+    void testLeftoverSnapshots(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("autosave");
+        Files.createDirectories(snapshots);
+
+        // a snapshot of a process that does not exist
+        long deadPid = Long.MAX_VALUE;
+        URI location = dir.resolve("document.txt").toUri();
+        Path leftover = snapshots.resolve("snapshot-" + deadPid + "-1.autosave");
+        Files.writeString(leftover, "content");
+        Files.writeString(snapshots.resolve(leftover.getFileName() + ".location"), location.toString());
+        // a snapshot without location and a location without snapshot
+        Path orphan = snapshots.resolve("snapshot-" + deadPid + "-2.autosave");
+        Files.writeString(orphan, "orphan");
+        Path orphanLocation = snapshots.resolve("snapshot-" + deadPid + "-3.autosave.location");
+        Files.writeString(orphanLocation, location.toString());
+        // a snapshot of a running process
+        Path running = snapshots.resolve("snapshot-" + ProcessHandle.current().pid() + "-99.autosave");
+        Files.writeString(running, "running");
+
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ZERO, Duration.ZERO)) {
+            List<AutosaveService.Snapshot> found = service.getLeftoverSnapshots().get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(1, found.size(), "Only the snapshot with a location should be listed");
+            Assertions.assertEquals(leftover, found.getFirst().file(), "Wrong snapshot file");
+            Assertions.assertEquals(location, found.getFirst().location(), "Wrong document location");
+
+            Assertions.assertFalse(Files.exists(orphan), "Snapshot without location should be deleted");
+            Assertions.assertFalse(Files.exists(orphanLocation), "Location without snapshot should be deleted");
+            Assertions.assertTrue(Files.exists(running), "Snapshots of running processes should be kept");
+
+            AutosaveService.discard(found.getFirst());
+            Assertions.assertTrue(AutosaveService.scan(snapshots).isEmpty(), "Discarded snapshot should not be listed");
+        }
+    }
+
+    private static String readSnapshot(Path snapshot) {
+        try {
+            return Files.readString(snapshot);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Test that dirty documents are saved periodically.
+     */
+    @Test
+    void testIntervalAutosave(@TempDir Path dir) throws Exception {
+        Path snapshots = dir.resolve("autosave");
+        FxDocumentTest.StreamingDocument doc = new FxDocumentTest.StreamingDocument("content");
+        doc.dirtyProperty().set(true);
+
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ofMillis(50), Duration.ZERO)) {
+            service.watch(doc);
+            Assertions.assertTrue(await(() -> service.getSnapshot(doc).isPresent()), "Snapshot should be written");
+
+            service.unwatch(doc);
+            Assertions.assertTrue(service.getSnapshot(doc).isEmpty(), "Unwatched documents should not be reported");
+        }
+    }
+
+    /**
+     * Test that a failing snapshot does not affect the document.
+     */
+    @Test
+    void testAutosaveFailure(@TempDir Path dir) throws IOException, InterruptedException {
+        Path snapshots = dir.resolve("autosave");
+        FxDocumentTest.StreamingDocument doc = new FxDocumentTest.StreamingDocument(null);
+        doc.dirtyProperty().set(true);
+
+        try (AutosaveService service = new AutosaveService(snapshots, Duration.ofMillis(20), Duration.ZERO)) {
+            service.watch(doc);
+            Thread.sleep(200);
+            Assertions.assertTrue(service.getSnapshot(doc).isEmpty(), "No snapshot should exist after failed writes");
+            Assertions.assertTrue(doc.isDirty(), "Document should still be dirty");
+        }
+    }
+}
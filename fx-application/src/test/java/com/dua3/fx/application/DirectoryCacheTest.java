@@ -0,0 +1,55 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for DirectoryCache.
+ */
+class DirectoryCacheTest {
+
+    /**
+     * Test that the fallback is used until a directory has been checked.
+     */
+    @Test
+    void testGet(@TempDir Path dir) throws Exception {
+        Path fallback = Files.createDirectory(dir.resolve("fallback"));
+        Path folder = Files.createDirectory(dir.resolve("folder"));
+        Path missing = dir.resolve("missing");
+        DirectoryCache cache = new DirectoryCache(() -> fallback, Duration.ofMinutes(1));
+
+        Assertions.assertEquals(fallback, cache.get(null), "Fallback should be used if no folder is requested");
+
+        cache.refresh(folder).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(folder, cache.get(folder), "Checked folder should be used");
+
+        Assertions.assertEquals(fallback, cache.refresh(missing).get(5, TimeUnit.SECONDS), "Missing folder should resolve to the fallback");
+        Assertions.assertEquals(fallback, cache.get(missing), "Fallback should be used for a missing folder");
+        Assertions.assertEquals(folder, cache.get(folder), "Checked folder should still be used after checking another folder");
+    }
+
+    /**
+     * Test that alternating between folders uses the results of earlier checks.
+     */
+    @Test
+    void testAlternatingFolders(@TempDir Path dir) throws Exception {
+        Path fallback = Files.createDirectory(dir.resolve("fallback"));
+        Path folder1 = Files.createDirectory(dir.resolve("folder1"));
+        Path folder2 = Files.createDirectory(dir.resolve("folder2"));
+        DirectoryCache cache = new DirectoryCache(() -> fallback, Duration.ofMinutes(1));
+
+        cache.refresh(folder1).get(5, TimeUnit.SECONDS);
+        cache.refresh(folder2).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(folder1, cache.get(folder1), "First folder should be used");
+            Assertions.assertEquals(folder2, cache.get(folder2), "Second folder should be used");
+        }
+    }
+}
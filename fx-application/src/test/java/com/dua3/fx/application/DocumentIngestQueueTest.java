@@ -0,0 +1,56 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for DocumentIngestQueue.
+ */
+class DocumentIngestQueueTest extends FxTestBase {
+
+    /**
+     * Test that documents are deduplicated and passed in batches, one batch at a time.
+     */
+    @Test
+    void testBatches() throws Exception {
+        List<List<URI>> batches = new CopyOnWriteArrayList<>();
+        List<CompletableFuture<Void>> pending = new CopyOnWriteArrayList<>();
+        DocumentIngestQueue queue = new DocumentIngestQueue(batch -> {
+            batches.add(batch);
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }, 4);
+
+        List<URI> uris = IntStream.range(0, 10).mapToObj(i -> URI.create("file:///test/document" + i + ".txt")).toList();
+        List<URI> withDuplicates = new ArrayList<>(uris);
+        withDuplicates.addAll(uris.subList(0, 3));
+        Assertions.assertEquals(10, queue.addAll(withDuplicates), "Duplicates should be ignored");
+
+        Assertions.assertTrue(await(() -> batches.size() == 1), "First batch should be passed");
+        Assertions.assertEquals(uris.subList(0, 4), batches.get(0), "First batch should contain the first documents");
+        Assertions.assertFalse(queue.add(uris.get(0)), "Documents being opened should be ignored");
+        Assertions.assertEquals(6, queue.getQueueSize(), "Remaining documents should wait");
+
+        // the next batch is passed only when the previous one is done
+        TimeUnit.MILLISECONDS.sleep(100);
+        Assertions.assertEquals(1, batches.size(), "Next batch should wait for the previous batch");
+
+        pending.get(0).complete(null);
+        Assertions.assertTrue(await(() -> batches.size() == 2), "Second batch should be passed");
+        pending.get(1).complete(null);
+        Assertions.assertTrue(await(() -> batches.size() == 3), "Third batch should be passed");
+        pending.get(2).complete(null);
+
+        Assertions.assertEquals(uris.subList(8, 10), batches.get(2), "Last batch should contain the remaining documents");
+        Assertions.assertTrue(await(() -> queue.add(uris.get(0))), "Documents can be queued again after they have been opened");
+    }
+}
@@ -0,0 +1,140 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Test class for DocumentInput.
+ */
+class DocumentInputTest {
+
+    private static final String CONTENT = "Hello, world!";
+
+    /**
+     * Test reading a local file.
+     */
+    @Test
+    void testFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.txt");
+        Files.writeString(file, CONTENT);
+
+        try (DocumentInput input = DocumentInput.open(file.toUri())) {
+            Assertions.assertFalse(input.isMapped(), "Local files should not be mapped by default");
+            Assertions.assertEquals(CONTENT.length(), input.size(), "Size should match the file size");
+
+            ByteBuffer buffer = input.buffer();
+            Assertions.assertTrue(buffer.isReadOnly(), "Buffer should be read-only");
+            Assertions.assertEquals(CONTENT, StandardCharsets.UTF_8.decode(buffer).toString(), "Buffer content should match");
+
+            // after reading the buffer, the stream reads from the buffer
+            try (InputStream in = input.inputStream()) {
+                Assertions.assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8), "Stream content should match");
+            }
+        }
+    }
+
+    /**
+     * Test reading a local file through a memory mapped buffer.
+     */
+    @Test
+    void testMappedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.txt");
+        Files.writeString(file, CONTENT);
+
+        try (DocumentInput input = DocumentInput.openMapped(file.toUri())) {
+            Assertions.assertTrue(input.isMapped(), "Local files should be mapped");
+            Assertions.assertEquals(CONTENT.length(), input.size(), "Size should match the file size");
+
+            ByteBuffer buffer = input.buffer();
+            Assertions.assertTrue(buffer.isReadOnly(), "Buffer should be read-only");
+            Assertions.assertEquals(CONTENT, StandardCharsets.UTF_8.decode(buffer).toString(), "Buffer content should match");
+
+            // the stream can be obtained in addition to the buffer
+            try (InputStream in = input.inputStream()) {
+                Assertions.assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8), "Stream content should match");
+            }
+        }
+    }
+
+    /**
+     * Test reading a document from a URI that does not represent a local file.
+     */
+    @Test
+    void testNonFileUri(@TempDir Path dir) throws IOException {
+        Path jar = dir.resolve("documents.jar");
+        try (OutputStream out = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("document.txt"));
+            zip.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        URI uri = URI.create("jar:" + jar.toUri() + "!/document.txt");
+        try (DocumentInput input = DocumentInput.open(uri)) {
+            Assertions.assertFalse(input.isMapped(), "Non-file URIs should not be mapped");
+            Assertions.assertEquals(-1, input.size(), "Size should be unknown");
+            Assertions.assertEquals(CONTENT, StandardCharsets.UTF_8.decode(input.buffer()).toString(), "Buffer content should match");
+
+            // after reading the buffer, the stream reads from the buffer
+            try (InputStream in = input.inputStream()) {
+                Assertions.assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8), "Stream content should match");
+            }
+        }
+
+        // if the stream is requested first, the content cannot be read into a buffer anymore
+        try (DocumentInput input = DocumentInput.open(uri);
+             InputStream in = input.inputStream()) {
+            Assertions.assertEquals(CONTENT, new String(in.readAllBytes(), StandardCharsets.UTF_8), "Stream content should match");
+            Assertions.assertThrows(IllegalStateException.class, input::buffer, "Stream should already be consumed");
+        }
+    }
+
+    /**
+     * Test that a document can be saved to the file it was loaded from while the loaded content is still referenced.
+     */
+    @Test
+    void testLoadThenSave(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.txt");
+        Files.writeString(file, CONTENT);
+
+        ByteBuffer loaded;
+        try (DocumentInput input = DocumentInput.open(file.toUri())) {
+            loaded = input.buffer();
+        }
+
+        TestDocument document = new TestDocument(file.toUri(), "Goodbye!");
+        document.save();
+
+        Assertions.assertEquals("Goodbye!", Files.readString(file), "The file should be replaced");
+        Assertions.assertEquals(CONTENT, StandardCharsets.UTF_8.decode(loaded).toString(), "Loaded content should be unchanged");
+    }
+
+    /**
+     * A document that writes a fixed text.
+     */
+    private static final class TestDocument extends FxDocument {
+        private final String text;
+
+        TestDocument(URI location, String text) {
+            super(location);
+            this.text = text;
+        }
+
+        @Override
+        protected void writeContent(OutputStream out) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
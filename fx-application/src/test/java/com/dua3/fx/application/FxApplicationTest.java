@@ -4,11 +4,22 @@ import com.dua3.utility.i18n.I18N;
 import javafx.scene.Parent;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Test class for FxApplication.
@@ -20,8 +31,21 @@ class FxApplicationTest extends FxTestBase {
      * A simple implementation of FxApplication for testing.
      */
     static class TestApplication extends FxApplication<TestApplication, TestController> {
-        TestApplication() {
+        private final Path dataDir;
+
+        TestApplication(Path dataDir) {
             super(I18N.getInstance(), null);
+            this.dataDir = dataDir;
+        }
+
+        @Override
+        protected Path createDataDir() {
+            // do not create folders in the user's home directory
+            try {
+                return Files.createDirectories(dataDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
 
         @Override
@@ -123,4 +147,172 @@ class FxApplicationTest extends FxTestBase {
         String text = FxApplication.asText(uri);
         Assertions.assertEquals("file:///test/path/file.txt", text, "asText should return the URI as a string");
     }
+
+    /**
+     * Test the conversion of command line arguments to document URIs.
+     */
+    @Test
+    void testToDocumentUri() {
+        Assertions.assertEquals(URI.create("https://example.com/doc.txt"), FxApplication.toDocumentUri("https://example.com/doc.txt"), "URIs should be used as is");
+        Assertions.assertEquals(Path.of("doc.txt").toAbsolutePath().toUri(), FxApplication.toDocumentUri("doc.txt"), "Relative paths should be resolved");
+    }
+
+    /**
+     * Test that init tasks are run and recorded in the startup timeline.
+     */
+    @Test
+    void testInit(@TempDir Path tempDir) throws Exception {
+        AtomicBoolean taskRun = new AtomicBoolean(false);
+        TestApplication app = new TestApplication(tempDir.resolve("data")) {
+            @Override
+            protected Map<String, Runnable> initTasks() {
+                Map<String, Runnable> tasks = super.initTasks();
+                tasks.put("test", () -> taskRun.set(true));
+                tasks.put("failing", () -> {
+                    throw new IllegalStateException("test");
+                });
+                return tasks;
+            }
+        };
+
+        app.init();
+
+        Assertions.assertTrue(taskRun.get(), "Init task should have been run");
+        StartupTimeline timeline = app.getStartupTimeline();
+        for (String phase : List.of("mergeBundle", "init", "init:dataDir", "dataDir", "init:preferences", "init:css", "init:test", "init:failing")) {
+            Assertions.assertTrue(timeline.getPhase(phase).isPresent(), "Phase should be recorded: " + phase);
+        }
+        Assertions.assertFalse(app.hasPreferences(), "Init should not create the preferences instance");
+        Assertions.assertTrue(app.getDataDirAsync().isDone(), "Data directory should have been resolved during init");
+    }
+
+    /**
+     * Test that the data directory is resolved lazily and cached.
+     */
+    @Test
+    void testDataDir(@TempDir Path tempDir) {
+        TestApplication app = new TestApplication(tempDir.resolve("data"));
+        Assertions.assertTrue(app.getStartupTimeline().getPhase("dataDir").isEmpty(), "Data directory should not be resolved in the constructor");
+
+        Path dir = app.getDataDir();
+        Assertions.assertEquals(tempDir.resolve("data"), dir, "Data directory should be determined by createDataDir()");
+        Assertions.assertTrue(Files.isDirectory(dir), "Data directory should be created");
+        Assertions.assertSame(app.getDataDirAsync(), app.getDataDirAsync(), "Result should be cached");
+        Assertions.assertEquals(dir, app.getDataDir(), "Data directory should not change");
+    }
+
+    /**
+     * Test that the user interface is created on a background thread and replaces the placeholder.
+     */
+    @Test
+    void testLoadUiInBackground(@TempDir Path tempDir) throws Exception {
+        CompletableFuture<Boolean> createdOnFxThread = new CompletableFuture<>();
+        TestApplication app = new TestApplication(tempDir.resolve("data")) {
+            {
+                setLoadUiInBackground(true);
+            }
+
+            @Override
+            protected Parent createParentAndInitController() {
+                createdOnFxThread.complete(javafx.application.Platform.isFxApplicationThread());
+                return super.createParentAndInitController();
+            }
+        };
+
+        Stage stage = callOnFxThread(() -> {
+            Stage s = new Stage();
+            app.start(s);
+            return s;
+        });
+        try {
+            Assertions.assertFalse(createdOnFxThread.get(5, TimeUnit.SECONDS), "UI should be created in the background");
+            Assertions.assertTrue(await(() -> app.getStartupTimeline().getPhase("attachUi").isPresent()), "UI should be attached");
+            Assertions.assertTrue(callOnFxThread(() -> stage.getScene().getRoot() instanceof VBox), "UI should replace the placeholder");
+        } finally {
+            runOnFxThread(stage::close);
+        }
+    }
+
+    /**
+     * Test that documents received before the controller is connected are opened when document ingest has not been
+     * enabled, e.g., documents forwarded by another instance in single-instance mode.
+     */
+    @Test
+    void testDocumentsReceivedDuringStartup(@TempDir Path tempDir) throws Exception {
+        TestApplication app = new TestApplication(tempDir.resolve("data")) {
+            {
+                setSingleInstance(true);
+            }
+        };
+        URI uri = tempDir.resolve("document.txt").toUri();
+        app.ingestDocuments(List.of(uri));
+
+        Stage stage = callOnFxThread(() -> {
+            Stage s = new Stage();
+            app.start(s);
+            return s;
+        });
+        try {
+            Assertions.assertTrue(await(() -> app.getController().getCurrentDocument()
+                            .map(d -> d.getLocation().equals(uri)).orElse(false)),
+                    "Document received during startup should be opened");
+        } finally {
+            runOnFxThread(stage::close);
+        }
+    }
+
+    /**
+     * Test that a failure to create the user interface in the background is reported on the FX thread.
+     */
+    @Test
+    void testLoadUiInBackgroundFailure(@TempDir Path tempDir) throws Exception {
+        Throwable t = loadUiInBackgroundFailure(tempDir, new IllegalStateException("test"));
+        Assertions.assertTrue(t instanceof IllegalStateException, "The exception should be passed on");
+    }
+
+    /**
+     * Test that an error during creation of the user interface in the background is reported, too.
+     */
+    @Test
+    void testLoadUiInBackgroundError(@TempDir Path tempDir) throws Exception {
+        Throwable t = loadUiInBackgroundFailure(tempDir, new NoClassDefFoundError("test"));
+        Assertions.assertTrue(t instanceof NoClassDefFoundError, "The error should be passed on");
+    }
+
+    private static Throwable loadUiInBackgroundFailure(Path tempDir, Throwable cause) throws Exception {
+        CompletableFuture<Throwable> failure = new CompletableFuture<>();
+        AtomicBoolean handledOnFxThread = new AtomicBoolean(false);
+        TestApplication app = new TestApplication(tempDir.resolve("data")) {
+            {
+                setLoadUiInBackground(true);
+            }
+
+            @Override
+            protected Parent createParentAndInitController() {
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw (RuntimeException) cause;
+            }
+
+            @Override
+            protected void uiCreationFailed(Throwable t) {
+                handledOnFxThread.set(javafx.application.Platform.isFxApplicationThread());
+                failure.complete(t);
+            }
+        };
+
+        Stage stage = callOnFxThread(() -> {
+            Stage s = new Stage();
+            app.start(s);
+            return s;
+        });
+        try {
+            Throwable t = failure.get(5, TimeUnit.SECONDS);
+            Assertions.assertTrue(handledOnFxThread.get(), "Failure should be handled on the FX thread");
+            return t;
+        } finally {
+            runOnFxThread(stage::close);
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for FxBatchDispatcher.
+ */
+class FxBatchDispatcherTest extends FxTestBase {
+
+    /**
+     * Test that items are handled in order and in bounded batches.
+     */
+    @Test
+    void testBatches() throws Exception {
+        List<List<Integer>> batches = new ArrayList<>();
+        FxBatchDispatcher<Integer> dispatcher = new FxBatchDispatcher<>(batch -> batches.add(List.copyOf(batch)), 4);
+
+        // run on the FX thread so that no pulse drains the queue in between
+        runOnFxThread(() -> {
+            IntStream.range(0, 10).forEach(dispatcher::dispatch);
+            Assertions.assertEquals(10, dispatcher.getQueueSize(), "Items should be queued until the next pulse");
+
+            dispatcher.drain();
+            dispatcher.drain();
+            dispatcher.drain();
+        });
+
+        Assertions.assertEquals(List.of(List.of(0, 1, 2, 3), List.of(4, 5, 6, 7), List.of(8, 9)), batches, "Items should be handled in bounded batches");
+        Assertions.assertEquals(0, dispatcher.getQueueSize(), "Queue should be empty");
+    }
+
+    /**
+     * Test that a failing action does not prevent the remaining actions from running.
+     */
+    @Test
+    void testFailingAction() throws Exception {
+        List<String> log = new ArrayList<>();
+        FxBatchDispatcher<Runnable> dispatcher = FxBatchDispatcher.forActions();
+
+        runOnFxThread(() -> {
+            dispatcher.dispatch(() -> log.add("first"));
+            dispatcher.dispatch(() -> {
+                throw new IllegalStateException("test");
+            });
+            dispatcher.dispatch(() -> log.add("third"));
+            dispatcher.drain();
+        });
+
+        Assertions.assertEquals(List.of("first", "third"), log, "Remaining actions should run");
+    }
+}
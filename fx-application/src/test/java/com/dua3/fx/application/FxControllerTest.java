@@ -1,6 +1,8 @@
 package com.dua3.fx.application;
 
 import com.dua3.utility.i18n.I18N;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.stage.FileChooser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,10 @@ import org.junit.jupiter.api.Test;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Test class for FxController.
@@ -78,6 +84,98 @@ class FxControllerTest extends FxTestBase {
         Assertions.assertEquals(doc, controller.getCurrentTestDocument(), "The loaded document should be set as the current document");
     }
 
+    /**
+     * Test the openAsync method.
+     */
+    @Test
+    void testOpenAsync() throws Exception {
+        TestController controller = new TestController();
+        TestApplication app = new TestApplication();
+
+        // Set the app instance for the controller
+        controller.setApp(app);
+
+        URI testUri = URI.create("file:///test/document.txt");
+
+        // Wait until the document is set as current document
+        CountDownLatch latch = new CountDownLatch(1);
+        controller.currentDocumentProperty.addListener((v, o, n) -> latch.countDown());
+
+        Task<TestDocument> task = controller.openAsync(testUri);
+
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS), "The document should be set as current document");
+        Assertions.assertEquals(testUri, controller.getCurrentDocument().orElseThrow().getLocation(), "The loaded document should be the current document");
+        Assertions.assertEquals(task.get(), controller.getCurrentDocument().orElseThrow(), "The current document should be the task result");
+    }
+
+    /**
+     * Test that openAll loads only the last document and asks before replacing the current document.
+     */
+    @Test
+    void testOpenAll() throws Exception {
+        TestController controller = new TestController();
+        controller.setApp(new TestApplication());
+
+        TestDocument current = new TestDocument(URI.create("file:///test/current.txt"));
+        current.setDirty(true);
+        controller.setCurrentDocument(current);
+
+        List<URI> uris = List.of(URI.create("file:///test/document1.txt"), URI.create("file:///test/document2.txt"));
+
+        // the user cancels when asked about unsaved changes
+        controller.replaceConfirmed = false;
+        List<TestDocument> loaded = controller.openAll(uris).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(List.of(uris.getLast()), controller.loadedUris, "Only the last document should be loaded");
+        Assertions.assertEquals(1, controller.confirmations.get(), "The user should be asked once after loading");
+        Assertions.assertEquals(current, controller.getCurrentDocument().orElseThrow(), "The current document should be kept");
+        Assertions.assertEquals(1, loaded.size(), "The loaded document should be returned");
+
+        // the user confirms
+        controller.replaceConfirmed = true;
+        loaded = controller.openAll(uris).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(2, controller.confirmations.get(), "The user should be asked again");
+        Assertions.assertEquals(loaded.getFirst(), controller.getCurrentDocument().orElseThrow(), "The loaded document should be current");
+        Assertions.assertEquals(uris.getLast(), loaded.getFirst().getLocation(), "The last document should be current");
+    }
+
+    /**
+     * Test that saving a document does not wait for bulk work.
+     */
+    @Test
+    void testSaveAsyncWhileBulkWorkIsPending() throws Exception {
+        TestController controller = new TestController() {
+            @Override
+            protected TaskExecutor createTaskExecutor() {
+                return new TaskExecutor(2, false, null);
+            }
+        };
+        controller.setApp(new TestApplication());
+
+        TestDocument doc = new TestDocument(URI.create("file:///test/document.txt"));
+        controller.setCurrentDocument(doc);
+
+        // occupy the bulk lane and queue more bulk work
+        CountDownLatch release = new CountDownLatch(1);
+        TaskExecutor executor = controller.getTaskExecutor();
+        try {
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            Assertions.assertTrue(controller.saveAsync().get(5, TimeUnit.SECONDS), "Document should be saved");
+            Assertions.assertTrue(doc.wasWriteCalled(), "Document should be written");
+        } finally {
+            release.countDown();
+            executor.close();
+        }
+    }
+
     /**
      * Test the dirtyDocuments method.
      * <p>
@@ -171,6 +269,9 @@ class FxControllerTest extends FxTestBase {
     static class TestController extends FxController<TestApplication, TestController, TestDocument> {
         private final List<TestDocument> documents = Collections.emptyList();
         private TestDocument currentDocument;
+        final List<URI> loadedUris = new CopyOnWriteArrayList<>();
+        final AtomicInteger confirmations = new AtomicInteger();
+        volatile boolean replaceConfirmed = true;
 
         @Override
         public List<TestDocument> dirtyDocuments() {
@@ -194,8 +295,16 @@ class FxControllerTest extends FxTestBase {
             currentDocument = doc;
         }
 
+        @Override
+        protected boolean confirmReplaceCurrentDocument() {
+            Assertions.assertTrue(Platform.isFxApplicationThread(), "Confirmation must run on the FX thread");
+            confirmations.incrementAndGet();
+            return replaceConfirmed;
+        }
+
         @Override
         protected TestDocument loadDocument(URI uri) {
+            loadedUris.add(uri);
             TestDocument doc = new TestDocument(uri);
             currentDocument = doc;
             return doc;
@@ -1,10 +1,18 @@
 package com.dua3.fx.application;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Test class for FxDocument.
@@ -44,6 +52,20 @@ class FxDocumentTest extends FxTestBase {
         Assertions.assertEquals("document.txt", doc2.getName(), "Name should be the filename part of the URI");
     }
 
+    /**
+     * Test the getLocationText method.
+     */
+    @Test
+    void testGetLocationText() {
+        TestDocument doc = new TestDocument(URI.create("file:///test/my%20document.txt"));
+        Assertions.assertEquals("file:///test/my document.txt", doc.getLocationText(), "Location text should be decoded");
+        Assertions.assertSame(doc.getLocationText(), doc.getLocationText(), "Location text should be cached");
+
+        // Changing the location updates the text
+        doc.setLocation(URI.create("file:///test/other.txt"));
+        Assertions.assertEquals("file:///test/other.txt", doc.getLocationText(), "Location text should be updated");
+    }
+
     /**
      * Test the dirty property.
      */
@@ -84,6 +106,22 @@ class FxDocumentTest extends FxTestBase {
         Assertions.assertTrue(doc2.wasWriteCalled(), "Write method should have been called");
     }
 
+    /**
+     * Test the saveAsAsync method.
+     */
+    @Test
+    void testSaveAsAsync() throws Exception {
+        TestDocument doc = new TestDocument();
+        URI testUri = URI.create("file:///test/document.txt");
+
+        // Run the write synchronously; the location is updated on the FX Application Thread
+        doc.saveAsAsync(testUri, Runnable::run).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertTrue(doc.wasWriteCalled(), "Write method should have been called");
+        Assertions.assertEquals(testUri, doc.getLocation(), "Location should be updated after saveAsAsync");
+        Assertions.assertFalse(doc.isSaving(), "Document should not be saving after the future completed");
+    }
+
     /**
      * Test that save throws an exception when location is not set.
      */
@@ -96,6 +134,107 @@ class FxDocumentTest extends FxTestBase {
                 "Save should throw an exception when location is not set");
     }
 
+    /**
+     * Test writing a document using the streaming API.
+     */
+    @Test
+    void testWriteContent(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.txt");
+        Files.writeString(file, "old content");
+
+        // Save the document, replacing the existing file
+        StreamingDocument doc = new StreamingDocument("new content");
+        doc.saveAs(file.toUri());
+
+        Assertions.assertEquals("new content", Files.readString(file), "File should contain the new content");
+        Assertions.assertEquals(file.toUri(), doc.getLocation(), "Location should be updated after saveAs");
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count(), "No temporary files should be left");
+        }
+    }
+
+    /**
+     * Test that a failed write leaves an existing file unchanged.
+     */
+    @Test
+    void testWriteContentFailure(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.txt");
+        Files.writeString(file, "old content");
+
+        // A null content makes the document fail after writing part of its content
+        StreamingDocument doc = new StreamingDocument(null);
+        Assertions.assertThrows(IOException.class, () -> doc.saveAs(file.toUri()), "saveAs should fail");
+
+        Assertions.assertEquals("old content", Files.readString(file), "File should be unchanged");
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(1, files.count(), "No temporary files should be left");
+        }
+    }
+
+    /**
+     * Test that writing a snapshot does not call write() or change the document's location.
+     */
+    @Test
+    void testWriteSnapshot(@TempDir Path dir) throws IOException {
+        URI location = dir.resolve("document.txt").toUri();
+        StreamingDocument doc = new StreamingDocument("content") {
+            @Override
+            protected void write(URI uri) {
+                throw new AssertionError("write() should not be called for snapshots");
+            }
+        };
+        doc.setLocation(location);
+        doc.dirtyProperty().set(true);
+
+        Path snapshot = dir.resolve("snapshot.txt");
+        doc.writeSnapshot(snapshot);
+
+        Assertions.assertEquals("content", Files.readString(snapshot), "Snapshot should contain the document content");
+        Assertions.assertEquals(location, doc.getLocation(), "Location should not change");
+        Assertions.assertTrue(doc.isDirty(), "Document should still be dirty");
+    }
+
+    /**
+     * Test that a new file gets the same permissions as any other newly created file.
+     */
+    @Test
+    void testWriteContentNewFilePermissions(@TempDir Path dir) throws IOException {
+        Assumptions.assumeTrue(dir.getFileSystem().supportedFileAttributeViews().contains("posix"), "POSIX file system required");
+
+        Path reference = Files.createFile(dir.resolve("reference.txt"));
+        Path file = dir.resolve("document.txt");
+        new StreamingDocument("content").saveAs(file.toUri());
+
+        Assertions.assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(file),
+                "New file should have the default permissions");
+    }
+
+    /**
+     * An implementation of FxDocument that uses the streaming API.
+     */
+    static class StreamingDocument extends FxDocument {
+        private String content;
+
+        StreamingDocument(String content) {
+            super(VOID_URI);
+            this.content = content;
+        }
+
+        void setContent(String content) {
+            this.content = content;
+            contentChanged();
+        }
+
+        @Override
+        protected void writeContent(OutputStream out) throws IOException {
+            if (content == null) {
+                out.write("partial".getBytes(StandardCharsets.UTF_8));
+                throw new IOException("write failed");
+            }
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     /**
      * A simple implementation of FxDocument for testing.
      */
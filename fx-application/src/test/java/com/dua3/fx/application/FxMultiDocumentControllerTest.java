@@ -0,0 +1,326 @@
+package com.dua3.fx.application;
+
+import com.dua3.utility.i18n.I18N;
+import javafx.application.Platform;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.stage.FileChooser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for FxMultiDocumentController.
+ */
+class FxMultiDocumentControllerTest extends FxTestBase {
+
+    private static final long DOCUMENT_SIZE = 100;
+
+    /**
+     * Test that documents are kept open and dirty documents are reported.
+     */
+    @Test
+    void testOpenDocuments() {
+        TestController controller = createController();
+
+        TestDocument doc1 = new TestDocument(URI.create("file:///test/document1.txt"));
+        TestDocument doc2 = new TestDocument(URI.create("file:///test/document2.txt"));
+        controller.setCurrentDocument(doc1);
+        controller.setCurrentDocument(doc2);
+
+        Assertions.assertEquals(2, controller.getOpenDocuments().size(), "Both documents should be open");
+        Assertions.assertEquals(doc2, controller.getCurrentDocument().orElseThrow(), "The last document should be current");
+        Assertions.assertTrue(controller.dirtyDocuments().isEmpty(), "Initially, there should be no dirty documents");
+
+        doc1.dirtyProperty().set(true);
+        Assertions.assertEquals(List.of(doc1), controller.dirtyDocuments(), "The modified document should be dirty");
+
+        // opening an already open document activates it
+        Assertions.assertTrue(controller.open(doc1.getLocation()), "Open should succeed");
+        Assertions.assertEquals(doc1, controller.getCurrentDocument().orElseThrow(), "The open document should be activated");
+        Assertions.assertEquals(2, controller.getOpenDocuments().size(), "No document should be added");
+    }
+
+    /**
+     * Test that least recently used clean documents are released when the memory budget is exceeded.
+     */
+    @Test
+    void testEviction() throws Exception {
+        TestController controller = createController();
+        controller.setMemoryBudget(3 * DOCUMENT_SIZE);
+
+        TestDocument dirty = new TestDocument(URI.create("file:///test/dirty.txt"));
+        dirty.dirtyProperty().set(true);
+        controller.setCurrentDocument(dirty);
+        for (int i = 0; i < 5; i++) {
+            controller.setCurrentDocument(new TestDocument(URI.create("file:///test/document" + i + ".txt")));
+        }
+
+        Assertions.assertEquals(6, controller.getOpenDocuments().size(), "All documents should be open");
+        Assertions.assertTrue(controller.getResidentMemoryUsage() <= 3 * DOCUMENT_SIZE, "Memory budget should be met");
+
+        FxMultiDocumentController.DocumentHandle<TestDocument> dirtyHandle = controller.findDocument(dirty.getLocation()).orElseThrow();
+        Assertions.assertTrue(dirtyHandle.isResident(), "Dirty documents must not be released");
+        Assertions.assertEquals(List.of(dirty), controller.dirtyDocuments(), "The dirty document should be reported");
+
+        FxMultiDocumentController.DocumentHandle<TestDocument> released = controller.findDocument(URI.create("file:///test/document0.txt")).orElseThrow();
+        Assertions.assertFalse(released.isResident(), "The least recently used document should be released");
+
+        // accessing a released document loads it again
+        TestDocument reloaded = controller.getDocument(released);
+        Assertions.assertEquals(released.getLocation(), reloaded.getLocation(), "The reloaded document should have the same location");
+        Assertions.assertTrue(released.isResident(), "The document should be resident after reloading");
+        Assertions.assertTrue(controller.getResidentMemoryUsage() <= 3 * DOCUMENT_SIZE, "Memory budget should still be met");
+    }
+
+    /**
+     * Test that a document being activated is not released when all other resident documents are dirty.
+     */
+    @Test
+    void testActivatedDocumentNotEvicted() {
+        TestController controller = createController();
+        controller.setMemoryBudget(3 * DOCUMENT_SIZE);
+
+        for (int i = 0; i < 3; i++) {
+            TestDocument doc = new TestDocument(URI.create("file:///test/dirty" + i + ".txt"));
+            controller.setCurrentDocument(doc);
+            doc.dirtyProperty().set(true);
+        }
+
+        TestDocument doc = new TestDocument(URI.create("file:///test/document.txt"));
+        controller.setCurrentDocument(doc);
+
+        FxMultiDocumentController.DocumentHandle<TestDocument> handle = controller.findDocument(doc.getLocation()).orElseThrow();
+        Assertions.assertTrue(handle.isResident(), "The current document must not be released");
+        Assertions.assertEquals(doc, controller.getCurrentDocument().orElseThrow(), "The new document should be current");
+
+        doc.dirtyProperty().set(true);
+        Assertions.assertTrue(controller.dirtyDocuments().contains(doc), "Changes to the current document should be reported");
+        Assertions.assertEquals(4, controller.dirtyDocuments().size(), "All dirty documents should be reported");
+
+        // the same applies to documents opened in bulk
+        TestDocument last = new TestDocument(URI.create("file:///test/last.txt"));
+        controller.documentsOpened(List.of(new TestDocument(URI.create("file:///test/first.txt")), last));
+        Assertions.assertTrue(controller.findDocument(last.getLocation()).orElseThrow().isResident(), "The last opened document must not be released");
+        Assertions.assertEquals(last, controller.getCurrentDocument().orElseThrow(), "The last opened document should be current");
+    }
+
+    /**
+     * Test that "save" in the unsaved changes dialog saves the dirty document and not the current document.
+     */
+    @Test
+    void testSaveDirtyDocumentThatIsNotCurrent() {
+        TestController controller = createController();
+
+        TestDocument dirty = new TestDocument(URI.create("file:///test/dirty.txt"));
+        TestDocument current = new TestDocument(URI.create("file:///test/current.txt"));
+        controller.setCurrentDocument(dirty);
+        controller.setCurrentDocument(current);
+        dirty.dirtyProperty().set(true);
+
+        controller.answer = ButtonBar.ButtonData.YES;
+        Assertions.assertTrue(controller.handleDirtyState(), "Saving should succeed");
+        Assertions.assertEquals(List.of(dirty.getLocation()), dirty.written, "The dirty document should be saved");
+        Assertions.assertTrue(current.written.isEmpty(), "The current document should not be saved");
+        Assertions.assertFalse(dirty.isDirty(), "The dirty document should be clean after saving");
+        Assertions.assertEquals(current, controller.getCurrentDocument().orElseThrow(), "The current document should not change");
+    }
+
+    /**
+     * Test closing documents.
+     */
+    @Test
+    void testCloseDocument() {
+        TestController controller = createController();
+
+        TestDocument doc = new TestDocument(URI.create("file:///test/document.txt"));
+        controller.setCurrentDocument(doc);
+        FxMultiDocumentController.DocumentHandle<TestDocument> handle = controller.findDocument(doc.getLocation()).orElseThrow();
+
+        controller.closeDocument(handle);
+        Assertions.assertTrue(controller.getOpenDocuments().isEmpty(), "No documents should be open");
+        Assertions.assertTrue(controller.getCurrentDocument().isEmpty(), "There should be no current document");
+    }
+
+    /**
+     * Test opening multiple documents in parallel with failures reported once.
+     */
+    @Test
+    void testOpenAll() throws Exception {
+        TestController controller = createController();
+
+        List<URI> uris = IntStream.range(0, 20)
+                .mapToObj(i -> URI.create("file:///test/" + (i % 5 == 0 ? "broken" : "document") + i + ".txt"))
+                .toList();
+        List<TestDocument> loaded = controller.openAll(uris).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(16, loaded.size(), "All valid documents should be loaded");
+        Assertions.assertEquals(uris.stream().filter(uri -> !uri.getPath().contains("broken")).toList(),
+                loaded.stream().map(TestDocument::getLocation).toList(), "Documents should be in request order");
+        Assertions.assertEquals(16, controller.getOpenDocuments().size(), "Loaded documents should be open");
+        Assertions.assertEquals(loaded.getLast(), controller.getCurrentDocument().orElseThrow(), "The last document should be current");
+        Assertions.assertEquals(4, controller.failures.size(), "Failures should be reported together");
+
+        // documents that are already open are not loaded again
+        Assertions.assertTrue(controller.openAll(uris.subList(1, 3)).get(5, TimeUnit.SECONDS).isEmpty(), "Open documents should not be loaded again");
+    }
+
+    /**
+     * Test that openAll completes when loading a document throws an Error or the executor rejects the work.
+     */
+    @Test
+    void testOpenAllFailures() throws Exception {
+        TestController controller = createController();
+        controller.maxParallelLoads = 1;
+
+        List<URI> uris = List.of(
+                URI.create("file:///test/error1.txt"),
+                URI.create("file:///test/document1.txt"),
+                URI.create("file:///test/document2.txt")
+        );
+        List<TestDocument> loaded = controller.openAll(uris).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(uris.subList(1, 3), loaded.stream().map(TestDocument::getLocation).toList(), "Documents after the error should be loaded");
+        Assertions.assertEquals(List.of(uris.getFirst()), List.copyOf(controller.failures.keySet()), "The error should be reported");
+
+        controller.failures.clear();
+        controller.getTaskExecutor().close();
+        List<URI> rejected = List.of(URI.create("file:///test/document3.txt"), URI.create("file:///test/document4.txt"));
+        Assertions.assertTrue(controller.openAll(rejected).get(5, TimeUnit.SECONDS).isEmpty(), "No document should be loaded after shutdown");
+        Assertions.assertEquals(rejected, List.copyOf(controller.failures.keySet()), "All documents should be reported as failed");
+    }
+
+    /**
+     * Test that the memory usage of documents loaded in the background is not estimated on the FX thread.
+     */
+    @Test
+    void testEstimateMemoryUsageInBackground() throws Exception {
+        TestController controller = createController();
+        controller.setMemoryBudget(DOCUMENT_SIZE);
+
+        List<URI> uris = List.of(URI.create("file:///test/document1.txt"), URI.create("file:///test/document2.txt"));
+        controller.openAll(uris).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(2, controller.estimatedOnFxThread.size(), "Memory usage should be estimated once per document");
+        Assertions.assertFalse(controller.estimatedOnFxThread.contains(true), "Memory usage should not be estimated on the FX thread");
+
+        FxMultiDocumentController.DocumentHandle<TestDocument> released = controller.findDocument(uris.getFirst()).orElseThrow();
+        Assertions.assertFalse(released.isResident(), "The first document should be released");
+
+        controller.estimatedOnFxThread.clear();
+        controller.setCurrentDocument(controller.getDocumentAsync(released).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(DOCUMENT_SIZE, controller.getResidentMemoryUsage(), "The memory budget should be met");
+        Assertions.assertFalse(controller.estimatedOnFxThread.contains(true), "Memory usage should not be estimated on the FX thread");
+    }
+
+    private static TestController createController() {
+        TestController controller = new TestController();
+        controller.setApp(new TestApplication());
+        return controller;
+    }
+
+    /**
+     * A simple implementation of FxDocument for testing.
+     */
+    static class TestDocument extends FxDocument {
+        final List<URI> written = new ArrayList<>();
+
+        TestDocument(URI location) {
+            super(location);
+        }
+
+        @Override
+        protected void write(URI uri) {
+            written.add(uri);
+            dirtyProperty().set(false);
+        }
+    }
+
+    /**
+     * A simple implementation of FxApplication for testing.
+     */
+    static class TestApplication extends FxApplication<TestApplication, TestController> {
+        TestApplication() {
+            super(I18N.getInstance(), null);
+        }
+
+        @Override
+        protected javafx.scene.Parent createParentAndInitController() {
+            // This method won't be called in our tests
+            return null;
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0.0-TEST";
+        }
+
+        @Override
+        public void showPreferencesDialog() {
+            // No-op for testing
+        }
+    }
+
+    /**
+     * A simple implementation of FxMultiDocumentController for testing.
+     */
+    static class TestController extends FxMultiDocumentController<TestApplication, TestController, TestDocument> {
+        @Override
+        protected FileChooser.ExtensionFilter selectedOpenFilter() {
+            return new FileChooser.ExtensionFilter("All Files", "*.*");
+        }
+
+        @Override
+        protected FileChooser.ExtensionFilter selectedSaveFilter() {
+            return new FileChooser.ExtensionFilter("All Files", "*.*");
+        }
+
+        final Map<URI, Throwable> failures = new LinkedHashMap<>();
+        final List<Boolean> estimatedOnFxThread = new CopyOnWriteArrayList<>();
+        ButtonBar.ButtonData answer = ButtonBar.ButtonData.CANCEL_CLOSE;
+        int maxParallelLoads = 4;
+
+        @Override
+        protected int getMaxParallelLoads() {
+            return maxParallelLoads;
+        }
+
+        @Override
+        protected ButtonType showConfirmationDialog(String header, String text, ButtonType defaultButton, ButtonType... buttons) {
+            return Arrays.stream(buttons)
+                    .filter(button -> button.getButtonData() == answer)
+                    .findFirst()
+                    .orElse(ButtonType.CANCEL);
+        }
+
+        @Override
+        protected TestDocument loadDocument(URI uri) throws IOException {
+            if (uri.getPath().contains("broken")) {
+                throw new IOException("broken document");
+            }
+            if (uri.getPath().contains("error")) {
+                throw new NoClassDefFoundError("test");
+            }
+            return new TestDocument(uri);
+        }
+
+        @Override
+        protected void showOpenDocumentsError(Map<URI, Throwable> failures) {
+            this.failures.putAll(failures);
+        }
+
+        @Override
+        protected long estimateMemoryUsage(TestDocument document) {
+            estimatedOnFxThread.add(Platform.isFxApplicationThread());
+            return DOCUMENT_SIZE;
+        }
+    }
+}
@@ -4,6 +4,12 @@ import javafx.application.Platform;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
 /**
  * Base class for JavaFX tests.
  * <p>
@@ -14,6 +20,11 @@ import org.junit.jupiter.api.BeforeAll;
  */
 public abstract class FxTestBase {
 
+    /**
+     * The maximum time to wait in {@link #await(BooleanSupplier)} and when running code on the FX thread.
+     */
+    private static final long TIMEOUT_MS = 5000;
+
     private static boolean platformInitialized = false;
     private static final Object lock = new Object();
 
@@ -47,4 +58,64 @@ public abstract class FxTestBase {
         // Intentionally empty - we don't want to shut down the platform between test classes
         System.out.println("JavaFX test completed, keeping platform running for subsequent tests");
     }
+
+    /**
+     * Wait until a condition is met.
+     *
+     * @param condition the condition, polled on the calling thread
+     * @return true, if the condition was met, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    protected static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Run an action on the FX thread and wait for it to complete. Since actions are run in order, this also waits
+     * for all actions that were posted to the FX thread before.
+     *
+     * @param action the action
+     * @throws Exception if the action fails or the timeout elapses
+     */
+    protected static void runOnFxThread(Runnable action) throws Exception {
+        callOnFxThread(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Get a value on the FX thread and wait for the result. Since actions are run in order, this also waits for all
+     * actions that were posted to the FX thread before.
+     *
+     * @param supplier the supplier of the value
+     * @param <T>      the type of the value
+     * @return the value
+     * @throws Exception if the supplier fails or the timeout elapses
+     */
+    protected static <T> T callOnFxThread(Supplier<T> supplier) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(supplier.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        try {
+            return result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception ex) {
+                throw ex;
+            }
+            throw e;
+        }
+    }
 }
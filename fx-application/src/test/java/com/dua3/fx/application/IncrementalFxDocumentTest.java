@@ -0,0 +1,167 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
+
+/**
+ * Test class for IncrementalFxDocument.
+ */
+class IncrementalFxDocumentTest {
+
+    /**
+     * Test that saving to the same location only appends modified chunks.
+     */
+    @Test
+    void testIncrementalSave(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.dat");
+
+        TestDocument doc = new TestDocument(FxDocument.VOID_URI);
+        for (long i = 0; i < 10; i++) {
+            doc.put(i, "chunk " + i);
+        }
+        doc.saveAs(file.toUri());
+        long initialSize = Files.size(file);
+
+        // modify one chunk and remove another one
+        doc.put(3, "modified");
+        doc.remove(7);
+        doc.save();
+        Assertions.assertTrue(Files.size(file) < 2 * initialSize, "Only modified chunks should have been appended");
+
+        TestDocument loaded = TestDocument.load(file.toUri());
+        Assertions.assertEquals(doc.chunks, loaded.chunks, "Loaded document should match saved document");
+    }
+
+    /**
+     * Test that the file is compacted when the compaction threshold is exceeded.
+     */
+    @Test
+    void testCompaction(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.dat");
+
+        TestDocument doc = new TestDocument(FxDocument.VOID_URI);
+        doc.put(1, "a".repeat(1000));
+        doc.saveAs(file.toUri());
+        long initialSize = Files.size(file);
+
+        // replace the only chunk several times; the file must not grow indefinitely
+        for (int i = 0; i < 5; i++) {
+            doc.put(1, String.valueOf((char) ('b' + i)).repeat(1000));
+            doc.save();
+            Assertions.assertTrue(Files.size(file) <= 2 * initialSize, "File should have been compacted");
+        }
+
+        TestDocument loaded = TestDocument.load(file.toUri());
+        Assertions.assertEquals(doc.chunks, loaded.chunks, "Loaded document should match saved document");
+    }
+
+    /**
+     * Test that incomplete data at the end of the file from an interrupted save is ignored.
+     */
+    @Test
+    void testInterruptedAppend(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("document.dat");
+
+        TestDocument doc = new TestDocument(FxDocument.VOID_URI);
+        doc.put(1, "first");
+        doc.put(2, "second");
+        doc.saveAs(file.toUri());
+
+        // simulate a partially written record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1}));
+        }
+
+        TestDocument loaded = TestDocument.load(file.toUri());
+        Assertions.assertEquals(doc.chunks, loaded.chunks, "Incomplete record should be ignored");
+
+        // saving the loaded document overwrites the incomplete record
+        loaded.put(2, "modified");
+        loaded.save();
+        Assertions.assertEquals(loaded.chunks, TestDocument.load(file.toUri()).chunks, "Loaded document should match saved document");
+
+        // simulate an append that was interrupted between two complete records of the same batch
+        TestDocument batch = new TestDocument(FxDocument.VOID_URI);
+        for (long i = 0; i < 10; i++) {
+            batch.put(i, "chunk " + i);
+        }
+        batch.saveAs(file.toUri());
+        Map<Long, String> committed = new LinkedHashMap<>(batch.chunks);
+        long batchStart = Files.size(file);
+
+        batch.put(1, "one");
+        batch.put(2, "two");
+        batch.save();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            // keep only the first record of the batch (record header: 16 bytes)
+            channel.truncate(batchStart + 16 + "one".length());
+        }
+
+        Assertions.assertEquals(committed, TestDocument.load(file.toUri()).chunks, "Uncommitted records should be ignored");
+    }
+
+    /**
+     * A simple implementation of IncrementalFxDocument for testing.
+     */
+    static class TestDocument extends IncrementalFxDocument {
+        private final Map<Long, String> chunks = new LinkedHashMap<>();
+        private final Collection<Long> dirty = new TreeSet<>();
+
+        TestDocument(URI location) {
+            super(location);
+        }
+
+        static TestDocument load(URI uri) throws IOException {
+            TestDocument doc = new TestDocument(uri);
+            SortedMap<Long, ByteBuffer> data = doc.readChunks();
+            data.forEach((id, buffer) -> doc.chunks.put(id, StandardCharsets.UTF_8.decode(buffer).toString()));
+            return doc;
+        }
+
+        void put(long id, String text) {
+            chunks.put(id, text);
+            dirty.add(id);
+        }
+
+        void remove(long id) {
+            chunks.remove(id);
+            dirty.remove(id);
+        }
+
+        @Override
+        protected Collection<Long> chunkIds() {
+            return new ArrayList<>(chunks.keySet());
+        }
+
+        @Override
+        protected Collection<Long> dirtyChunkIds() {
+            return new ArrayList<>(dirty);
+        }
+
+        @Override
+        protected byte[] chunkData(long id) {
+            return chunks.get(id).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        protected void chunksSaved() {
+            dirty.clear();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.dua3.fx.application;
+
+import javafx.beans.property.IntegerProperty;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * Test class for PreferenceCache.
+ */
+class PreferenceCacheTest extends FxTestBase {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private Preferences node;
+
+    @BeforeEach
+    void setUp() {
+        node = Preferences.userRoot().node("com/dua3/fx/application/test/" + System.nanoTime());
+    }
+
+    @AfterEach
+    void tearDown() throws BackingStoreException {
+        node.removeNode();
+    }
+
+    /**
+     * Test that values are read from the backing store and changes are visible immediately.
+     */
+    @Test
+    void testGetAndPut() {
+        node.put("existing", "stored");
+
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            Assertions.assertEquals("stored", cache.get("existing", "default"), "Stored value should be returned");
+            Assertions.assertEquals("default", cache.get("missing", "default"), "Default value should be returned");
+            Assertions.assertNull(cache.getOrNull("missing"), "Missing value should be null");
+
+            cache.put("missing", "value");
+            Assertions.assertEquals("value", cache.get("missing", "default"), "New value should be visible immediately");
+
+            cache.remove("existing");
+            Assertions.assertEquals("default", cache.get("existing", "default"), "Removed value should not be visible");
+        }
+    }
+
+    /**
+     * Test that changes are written to the backing store when flushed.
+     */
+    @Test
+    void testFlush() {
+        node.put("removed", "value");
+
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            cache.put("key", "first");
+            cache.put("key", "second");
+            cache.remove("removed");
+
+            Assertions.assertTrue(cache.flush(TIMEOUT), "Flush should succeed");
+            Assertions.assertEquals("second", node.get("key", null), "Latest value should be written");
+            Assertions.assertNull(node.get("removed", null), "Removed value should be removed from the backing store");
+        }
+    }
+
+    /**
+     * Test typed values.
+     */
+    @Test
+    void testTypedValues() {
+        node.putInt("stored", 42);
+        node.put("invalid", "not a number");
+
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            Assertions.assertEquals(42, cache.getInt("stored", 0), "Stored int should be returned");
+            Assertions.assertEquals(42L, cache.getLong("stored", 0L), "Stored value should be readable as long");
+            Assertions.assertEquals(-1, cache.getInt("invalid", -1), "Default should be returned for invalid values");
+
+            cache.putInt("int", 7);
+            cache.putLong("long", Long.MAX_VALUE);
+            cache.putDouble("double", 0.5);
+            cache.putBoolean("boolean", true);
+            cache.putByteArray("bytes", new byte[]{1, 2, 3});
+            cache.putEnum("enum", Mode.DARK);
+
+            Assertions.assertEquals(7, cache.getInt("int", 0), "int value");
+            Assertions.assertEquals(Long.MAX_VALUE, cache.getLong("long", 0L), "long value");
+            Assertions.assertEquals(0.5, cache.getDouble("double", 0.0), "double value");
+            Assertions.assertTrue(cache.getBoolean("boolean", false), "boolean value");
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3}, cache.getByteArray("bytes", null), "byte array value");
+            Assertions.assertEquals(Mode.DARK, cache.getEnum("enum", Mode.class, Mode.LIGHT), "enum value");
+
+            // values are stored in the same format as used by Preferences
+            Assertions.assertTrue(cache.flush(TIMEOUT), "Flush should succeed");
+            Assertions.assertEquals(7, node.getInt("int", 0), "int value in backing store");
+            Assertions.assertEquals(0.5, node.getDouble("double", 0.0), "double value in backing store");
+            Assertions.assertTrue(node.getBoolean("boolean", false), "boolean value in backing store");
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3}, node.getByteArray("bytes", null), "byte array value in backing store");
+            Assertions.assertEquals("DARK", node.get("enum", null), "enum value in backing store");
+        }
+    }
+
+    /**
+     * Test record values.
+     */
+    @Test
+    void testRecord() {
+        Geometry def = new Geometry(0, 0, 800, 600, false, Mode.LIGHT);
+
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            Assertions.assertEquals(def, cache.getRecord("window", Geometry.class, def), "Default should be returned");
+
+            Geometry geometry = new Geometry(10, 20, 1024, 768, true, Mode.DARK);
+            cache.putRecord("window", geometry);
+            Assertions.assertEquals(geometry, cache.getRecord("window", Geometry.class, def), "Stored record should be returned");
+
+            cache.putDouble("window.width", 640);
+            Assertions.assertEquals(640.0, cache.getRecord("window", Geometry.class, def).width(), "Changed component should be reflected");
+        }
+
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            Assertions.assertEquals(new Geometry(10, 20, 640, 768, true, Mode.DARK), cache.getRecord("window", Geometry.class, def), "Record should be read from the backing store");
+        }
+    }
+
+    /**
+     * Test that properties and preferences are kept in sync.
+     */
+    @Test
+    void testProperty() {
+        try (PreferenceCache cache = new PreferenceCache(node)) {
+            IntegerProperty property = cache.integerProperty("size", 12);
+            Assertions.assertEquals(12, property.get(), "Property should be initialized with the default");
+            Assertions.assertSame(property, cache.integerProperty("size", 12), "The same property should be returned");
+
+            property.set(14);
+            Assertions.assertEquals(14, cache.getInt("size", 0), "Property changes should be stored");
+
+            cache.putInt("size", 16);
+            Assertions.assertEquals(16, property.get(), "Preference changes should update the property");
+
+            Assertions.assertThrows(IllegalArgumentException.class, () -> cache.booleanProperty("size", false), "Type mismatch should be detected");
+        }
+    }
+
+    /**
+     * Test that pending changes are written on close.
+     */
+    @Test
+    void testClose() {
+        PreferenceCache cache = new PreferenceCache(node);
+        cache.put("key", "value");
+
+        Assertions.assertTrue(cache.close(TIMEOUT), "Close should write pending changes");
+        Assertions.assertEquals("value", node.get("key", null), "Value should be written on close");
+    }
+
+    /**
+     * Test that flush and close report failures of the backing store and keep the changes pending.
+     */
+    @Test
+    void testFlushFailure() {
+        FailingPreferences failing = new FailingPreferences();
+        PreferenceCache cache = new PreferenceCache(failing);
+        cache.put("key", "value");
+
+        Assertions.assertFalse(cache.flush(TIMEOUT), "Flush should report the failure");
+        Assertions.assertFalse(cache.flush(TIMEOUT), "Failed changes should be kept pending");
+        Assertions.assertEquals("value", cache.get("key", "default"), "Value should still be visible");
+
+        failing.fail = false;
+        Assertions.assertTrue(cache.close(TIMEOUT), "Close should write the pending changes");
+        Assertions.assertEquals("value", failing.get("key", null), "Value should be written");
+    }
+
+    enum Mode {LIGHT, DARK}
+
+    /**
+     * A preferences node that fails to sync to the backing store.
+     */
+    static class FailingPreferences extends AbstractPreferences {
+        private final Map<String, String> values = new ConcurrentHashMap<>();
+        volatile boolean fail = true;
+
+        FailingPreferences() {
+            super(null, "");
+        }
+
+        @Override
+        protected void putSpi(String key, String value) {
+            values.put(key, value);
+        }
+
+        @Override
+        protected String getSpi(String key) {
+            return values.get(key);
+        }
+
+        @Override
+        protected void removeSpi(String key) {
+            values.remove(key);
+        }
+
+        @Override
+        protected void removeNodeSpi() {
+            // nothing to do
+        }
+
+        @Override
+        protected String[] keysSpi() {
+            return values.keySet().toArray(String[]::new);
+        }
+
+        @Override
+        protected String[] childrenNamesSpi() {
+            return new String[0];
+        }
+
+        @Override
+        protected AbstractPreferences childSpi(String name) {
+            throw new UnsupportedOperationException("child nodes are not supported");
+        }
+
+        @Override
+        protected void syncSpi() throws BackingStoreException {
+            flushSpi();
+        }
+
+        @Override
+        protected void flushSpi() throws BackingStoreException {
+            if (fail) {
+                throw new BackingStoreException("backing store not available");
+            }
+        }
+    }
+
+    record Geometry(double x, double y, double width, double height, boolean maximized, Mode mode) {}
+}
@@ -0,0 +1,101 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for RecentDocuments.
+ */
+class RecentDocumentsTest extends FxTestBase {
+
+    /**
+     * Test that the list is bounded, ordered by use, and persisted.
+     */
+    @Test
+    void testAddAndLoad(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("recent-documents");
+        URI a = Files.writeString(dir.resolve("a.txt"), "a").toUri();
+        URI b = Files.writeString(dir.resolve("b.txt"), "b").toUri();
+        URI c = Files.writeString(dir.resolve("c.txt"), "c").toUri();
+
+        try (RecentDocuments recent = new RecentDocuments(file, 2)) {
+            recent.add(a);
+            recent.add(b);
+            recent.add(c);
+            recent.add(b);
+            Assertions.assertTrue(await(() -> uris(recent).equals(List.of(b, c))), "List should be bounded and ordered by use");
+        }
+
+        Assertions.assertTrue(Files.exists(file), "List should be written to the file");
+
+        try (RecentDocuments recent = new RecentDocuments(file, 2)) {
+            recent.load().get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(List.of(b, c), uris(recent), "Loaded list should match the saved list");
+        }
+    }
+
+    /**
+     * Test that documents added while the list is loading are merged with the loaded entries and that the merged list
+     * is saved.
+     */
+    @Test
+    void testAddWhileLoading(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("recent-documents");
+        URI a = dir.resolve("a.txt").toUri();
+        URI b = dir.resolve("b.txt").toUri();
+        URI c = dir.resolve("c.txt").toUri();
+
+        try (RecentDocuments recent = new RecentDocuments(file, 10)) {
+            recent.add(a);
+            recent.add(b);
+            Assertions.assertTrue(await(() -> uris(recent).equals(List.of(b, a))), "Entries should be added");
+        }
+
+        try (RecentDocuments recent = new RecentDocuments(file, 10)) {
+            var task = recent.load();
+            recent.add(c);
+            task.get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(List.of(c, b, a), uris(recent), "Added entry should be merged with loaded entries");
+        }
+
+        try (RecentDocuments recent = new RecentDocuments(file, 10)) {
+            recent.load().get(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(List.of(c, b, a), uris(recent), "Merged list should be saved");
+        }
+    }
+
+    /**
+     * Test that missing documents are detected in the background and can be removed.
+     */
+    @Test
+    void testValidation(@TempDir Path dir) throws Exception {
+        URI existing = Files.writeString(dir.resolve("existing.txt"), "content").toUri();
+        URI missing = dir.resolve("missing.txt").toUri();
+
+        try (RecentDocuments recent = new RecentDocuments(dir.resolve("recent-documents"), 10)) {
+            recent.add(missing);
+            recent.add(existing);
+            Assertions.assertTrue(await(() -> recent.getEntries().stream().noneMatch(e -> e.status() == RecentDocuments.Status.UNKNOWN)),
+                    "All entries should be checked");
+
+            RecentDocuments.Entry entry = recent.getEntries().get(0);
+            Assertions.assertEquals(RecentDocuments.Status.AVAILABLE, entry.status(), "Existing document should be available");
+            Assertions.assertEquals(7, entry.size(), "Size should be read");
+            Assertions.assertEquals(RecentDocuments.Status.MISSING, recent.getEntries().get(1).status(), "Missing document should be detected");
+
+            recent.removeMissing();
+            Assertions.assertTrue(await(() -> uris(recent).equals(List.of(existing))), "Missing documents should be removed");
+        }
+    }
+
+    private static List<URI> uris(RecentDocuments recent) {
+        return recent.getEntries().stream().map(RecentDocuments.Entry::uri).toList();
+    }
+}
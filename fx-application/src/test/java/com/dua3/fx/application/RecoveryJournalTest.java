@@ -0,0 +1,150 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Test class for RecoveryJournal.
+ */
+class RecoveryJournalTest extends FxTestBase {
+
+    /**
+     * Test that recorded changes can be recovered from the journal files.
+     */
+    @Test
+    void testRecover(@TempDir Path dir) throws Exception {
+        Path journalDir = dir.resolve("recovery");
+        URI location = dir.resolve("document.txt").toUri();
+        EditableDocument doc = new EditableDocument(location);
+
+        try (RecoveryJournal journal = new RecoveryJournal(journalDir)) {
+            journal.attach(doc);
+            doc.edit("one");
+            doc.edit("two");
+            doc.edit("three");
+            Assertions.assertTrue(journal.flush(5, TimeUnit.SECONDS), "Journal should be flushed");
+
+            // journal files in use are not reported
+            Assertions.assertTrue(RecoveryJournal.scan(journalDir).isEmpty(), "Journal in use should be skipped");
+
+            // journal files written by this process are not reported, even if they are not locked
+            Files.createDirectories(dir.resolve("copy"));
+            try (Stream<Path> files = Files.list(journalDir)) {
+                for (Path file : files.toList()) {
+                    Files.copy(file, dir.resolve("copy").resolve(file.getFileName()));
+                }
+            }
+            Assertions.assertTrue(RecoveryJournal.scan(dir.resolve("copy")).isEmpty(), "Own journal should be skipped");
+
+            // simulate a crash by copying the journal before it is closed
+            copyJournal(journalDir, dir.resolve("crashed"));
+        }
+
+        List<RecoveryJournal.RecoveredDocument> recovered = RecoveryJournal.scan(dir.resolve("crashed"));
+        Assertions.assertEquals(1, recovered.size(), "One document should be recovered");
+        Assertions.assertEquals(location, recovered.getFirst().location(), "Location should be recovered");
+        Assertions.assertEquals(List.of("one", "two", "three"), decode(recovered.getFirst().changes()), "Changes should be recovered in order");
+
+        // after a normal close, no journal files are left
+        Assertions.assertTrue(RecoveryJournal.scan(journalDir).isEmpty(), "Journal should be deleted on close");
+    }
+
+    /**
+     * Test that saving a document clears its journal.
+     */
+    @Test
+    void testSaveClearsJournal(@TempDir Path dir) throws Exception {
+        Path journalDir = dir.resolve("recovery");
+        EditableDocument doc = new EditableDocument(FxDocument.VOID_URI);
+
+        try (RecoveryJournal journal = new RecoveryJournal(journalDir)) {
+            journal.attach(doc);
+            doc.edit("before save");
+            doc.saveAs(dir.resolve("document.txt").toUri());
+            doc.edit("after save");
+            Assertions.assertTrue(journal.flush(5, TimeUnit.SECONDS), "Journal should be flushed");
+
+            copyJournal(journalDir, dir.resolve("crashed"));
+        }
+
+        List<RecoveryJournal.RecoveredDocument> recovered = RecoveryJournal.scan(dir.resolve("crashed"));
+        Assertions.assertEquals(1, recovered.size(), "One document should be recovered");
+        Assertions.assertEquals(dir.resolve("document.txt").toUri(), recovered.getFirst().location(), "Location should be updated after save");
+        Assertions.assertEquals(List.of("after save"), decode(recovered.getFirst().changes()), "Only changes after save should be recovered");
+    }
+
+    /**
+     * Test that an incomplete record at the end of the journal is ignored.
+     */
+    @Test
+    void testTornRecord(@TempDir Path dir) throws Exception {
+        Path journalDir = dir.resolve("recovery");
+        EditableDocument doc = new EditableDocument(FxDocument.VOID_URI);
+
+        try (RecoveryJournal journal = new RecoveryJournal(journalDir)) {
+            journal.attach(doc);
+            doc.edit("complete");
+            Assertions.assertTrue(journal.flush(5, TimeUnit.SECONDS), "Journal should be flushed");
+            copyJournal(journalDir, dir.resolve("crashed"));
+        }
+
+        try (Stream<Path> files = Files.list(dir.resolve("crashed"))) {
+            Path file = files.findFirst().orElseThrow();
+            // length, checksum, and only part of the data
+            Files.write(file, new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5, 6}, StandardOpenOption.APPEND);
+        }
+
+        List<RecoveryJournal.RecoveredDocument> recovered = RecoveryJournal.scan(dir.resolve("crashed"));
+        Assertions.assertEquals(List.of("complete"), decode(recovered.getFirst().changes()), "Incomplete record should be ignored");
+    }
+
+    /**
+     * Copy journal files, renaming them as if they had been written by a process that is no longer running.
+     */
+    private static void copyJournal(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        String ownPid = "-" + ProcessHandle.current().pid() + "-";
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, to.resolve(file.getFileName().toString().replace(ownPid, "-" + Long.MAX_VALUE + "-")));
+            }
+        }
+    }
+
+    private static List<String> decode(List<byte[]> changes) {
+        return changes.stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList();
+    }
+
+    /**
+     * A document that records its changes.
+     */
+    static class EditableDocument extends FxDocument {
+        private final StringBuilder content = new StringBuilder();
+
+        EditableDocument(URI location) {
+            super(location);
+        }
+
+        void edit(String text) {
+            content.append(text);
+            dirtyProperty().set(true);
+            recordChange(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected void write(URI uri) {
+            dirtyProperty().set(false);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test class for SingleInstance.
+ */
+class SingleInstanceTest {
+
+    /**
+     * Test that documents are forwarded to the listening instance.
+     */
+    @Test
+    void testForward(@TempDir Path dir) {
+        Path socket = dir.resolve(SingleInstance.SOCKET_NAME);
+        List<URI> received = new CopyOnWriteArrayList<>();
+        List<URI> uris = List.of(URI.create("file:///test/document1.txt"), URI.create("file:///test/document2.txt"));
+
+        Assertions.assertFalse(SingleInstance.send(socket, uris), "Sending should fail if no instance is running");
+
+        try (SingleInstance instance = SingleInstance.listen(socket, received::addAll).orElseThrow()) {
+            Assertions.assertTrue(SingleInstance.listen(socket, received::addAll).isEmpty(), "Only one instance should listen");
+            Assertions.assertTrue(SingleInstance.send(socket, uris), "Running instance should accept the request");
+            Assertions.assertEquals(uris, received, "Documents should be forwarded");
+        }
+
+        Assertions.assertFalse(Files.exists(socket), "Socket file should be removed on close");
+    }
+
+    /**
+     * Test that a stale socket file is replaced.
+     */
+    @Test
+    void testStaleSocket(@TempDir Path dir) throws Exception {
+        Path socket = dir.resolve(SingleInstance.SOCKET_NAME);
+        Files.createFile(socket);
+
+        Assertions.assertFalse(SingleInstance.send(socket, List.of()), "Sending to a stale socket should fail");
+        try (SingleInstance instance = SingleInstance.listen(socket, uris -> {}).orElseThrow()) {
+            Assertions.assertTrue(SingleInstance.send(socket, List.of()), "Instance should listen after replacing the stale socket");
+        }
+    }
+
+    /**
+     * Test that a client that connects but does not send a request does not block other instances.
+     */
+    @Test
+    void testStalledClient(@TempDir Path dir) throws Exception {
+        Path socket = dir.resolve(SingleInstance.SOCKET_NAME);
+        List<URI> received = new CopyOnWriteArrayList<>();
+        List<URI> uris = List.of(URI.create("file:///test/document.txt"));
+
+        try (SingleInstance instance = SingleInstance.listen(socket, received::addAll).orElseThrow();
+             SocketChannel stalled = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            Assertions.assertTrue(stalled.isConnected(), "Stalled client should be connected");
+            Assertions.assertTrue(SingleInstance.send(socket, uris), "Request should be accepted while another client stalls");
+            Assertions.assertEquals(uris, received, "Documents should be forwarded");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Test class for StartupTimeline.
+ */
+class StartupTimelineTest {
+
+    /**
+     * Test that phases are recorded in order of completion.
+     */
+    @Test
+    void testPhases() {
+        StartupTimeline timeline = new StartupTimeline();
+
+        try (var outer = timeline.phase("outer")) {
+            try (var inner = timeline.phase("inner")) {
+                Assertions.assertTrue(timeline.getPhases().isEmpty(), "Running phases should not be reported");
+            }
+        }
+
+        List<StartupTimeline.Phase> phases = timeline.getPhases();
+        Assertions.assertEquals(List.of("inner", "outer"), phases.stream().map(StartupTimeline.Phase::name).toList(), "Phases should be reported in order of completion");
+
+        StartupTimeline.Phase outer = timeline.getPhase("outer").orElseThrow();
+        StartupTimeline.Phase inner = timeline.getPhase("inner").orElseThrow();
+        Assertions.assertTrue(outer.startNanos() <= inner.startNanos(), "Inner phase should start after outer phase");
+        Assertions.assertTrue(outer.durationNanos() >= inner.durationNanos(), "Outer phase should include inner phase");
+    }
+
+    /**
+     * Test that the first frame is recorded only once.
+     */
+    @Test
+    void testFirstFrame() {
+        StartupTimeline timeline = new StartupTimeline();
+        Assertions.assertTrue(timeline.getTimeToFirstFrame().isEmpty(), "No frame should be recorded initially");
+
+        timeline.markFirstFrame();
+        long ttff = timeline.getTimeToFirstFrame().orElseThrow().toNanos();
+        timeline.markFirstFrame();
+
+        Assertions.assertEquals(ttff, timeline.getTimeToFirstFrame().orElseThrow().toNanos(), "Only the first frame should be recorded");
+        Assertions.assertEquals(1, timeline.getPhases().size(), "First frame should be recorded as a phase");
+    }
+}
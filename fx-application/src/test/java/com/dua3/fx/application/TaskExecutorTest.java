@@ -0,0 +1,135 @@
+package com.dua3.fx.application;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for TaskExecutor.
+ */
+class TaskExecutorTest extends FxTestBase {
+
+    /**
+     * Test that UI work is taken before bulk work.
+     */
+    @Test
+    void testPriority() throws Exception {
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        try (TaskExecutor executor = new TaskExecutor(1, false, null)) {
+            CountDownLatch started = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                await(blocker);
+            }, TaskExecutor.Priority.BULK);
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS), "First task should start");
+
+            executor.execute(() -> order.add("bulk"), TaskExecutor.Priority.BULK);
+            executor.execute(() -> order.add("ui"), TaskExecutor.Priority.UI);
+            blocker.countDown();
+
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(Duration.ofSeconds(5)), "Executor should terminate");
+        }
+
+        Assertions.assertEquals(List.of("ui", "bulk"), order, "UI work should run first");
+    }
+
+    /**
+     * Test that bulk work does not occupy all workers.
+     */
+    @Test
+    void testBulkDoesNotBlockUi() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        try (TaskExecutor executor = new TaskExecutor(2, false, null)) {
+            for (int i = 0; i < 4; i++) {
+                executor.execute(() -> await(blocker), TaskExecutor.Priority.BULK);
+            }
+
+            CountDownLatch uiDone = new CountDownLatch(1);
+            executor.execute(uiDone::countDown, TaskExecutor.Priority.UI);
+            Assertions.assertTrue(uiDone.await(5, TimeUnit.SECONDS), "UI work should run while bulk work is blocked");
+
+            blocker.countDown();
+        }
+    }
+
+    /**
+     * Test that submitted tasks are added to and removed from the task list.
+     */
+    @Test
+    void testTaskList() throws Exception {
+        ObservableList<Task<?>> tasks = FXCollections.observableArrayList();
+        CountDownLatch blocker = new CountDownLatch(1);
+
+        try (TaskExecutor executor = new TaskExecutor(1, false, tasks)) {
+            executor.execute(() -> await(blocker), TaskExecutor.Priority.UI);
+
+            Task<String> task = new Task<>() {
+                @Override
+                protected String call() {
+                    return "done";
+                }
+            };
+            executor.submit(task, TaskExecutor.Priority.UI);
+            // the task list is updated on the FX thread
+            Assertions.assertEquals(List.of(task), callOnFxThread(() -> List.copyOf(tasks)), "Task should be listed while pending");
+
+            blocker.countDown();
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(Duration.ofSeconds(5)), "Executor should terminate");
+        }
+
+        Assertions.assertTrue(callOnFxThread(tasks::isEmpty), "Task should be removed when done");
+    }
+
+    /**
+     * Test that an Error thrown by work does not reduce the number of workers.
+     */
+    @Test
+    void testErrorInWork() throws Exception {
+        try (TaskExecutor executor = new TaskExecutor(2, false, null)) {
+            executor.execute(() -> {
+                throw new AssertionError("test");
+            }, TaskExecutor.Priority.BULK);
+
+            CountDownLatch done = new CountDownLatch(4);
+            for (int i = 0; i < 4; i++) {
+                executor.execute(done::countDown, TaskExecutor.Priority.BULK);
+            }
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS), "Work submitted after the error should run");
+
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(Duration.ofSeconds(1)), "Executor should terminate");
+        }
+    }
+
+    /**
+     * Test that work is rejected after shutdown.
+     */
+    @Test
+    void testShutdown() {
+        TaskExecutor executor = new TaskExecutor(1, false, null);
+        executor.close();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}), "Work should be rejected after shutdown");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS), "Timeout waiting for latch");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
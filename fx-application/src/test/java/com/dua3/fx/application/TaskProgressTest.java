@@ -0,0 +1,63 @@
+package com.dua3.fx.application;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for TaskProgress.
+ */
+class TaskProgressTest extends FxTestBase {
+
+    /**
+     * Test the percentiles of the latency histogram.
+     */
+    @Test
+    void testLatencyHistogram() {
+        long[] buckets = new long[64];
+        buckets[3] = 9;
+        buckets[10] = 1;
+        TaskProgress.LatencyHistogram histogram = new TaskProgress.LatencyHistogram(buckets);
+
+        Assertions.assertEquals(10, histogram.count(), "Count should be the sum of the buckets");
+        Assertions.assertEquals(Duration.ofNanos(15), histogram.percentile(50), "Median should be in bucket 3");
+        Assertions.assertEquals(Duration.ofNanos(2047), histogram.percentile(99), "P99 should be in bucket 10");
+        Assertions.assertEquals(Duration.ZERO, new TaskProgress.LatencyHistogram(new long[64]).percentile(50), "Empty histogram should return zero");
+    }
+
+    /**
+     * Test that the executor reports completed and failed work.
+     */
+    @Test
+    void testExecutorProgress() throws Exception {
+        try (TaskExecutor executor = new TaskExecutor(2, false, null)) {
+            TaskProgress progress = executor.getProgress();
+            for (int i = 0; i < 10; i++) {
+                int n = i;
+                executor.execute(() -> {
+                    if (n == 0) {
+                        throw new IllegalStateException("test");
+                    }
+                });
+            }
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(Duration.ofSeconds(5)), "Executor should terminate");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (callOnFxThread(() -> progress.workDoneProperty().get()) < 10 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+
+            long workDone = callOnFxThread(() -> progress.workDoneProperty().get());
+            long totalWork = callOnFxThread(() -> progress.totalWorkProperty().get());
+            double value = callOnFxThread(() -> progress.progressProperty().get());
+            Assertions.assertEquals(10, workDone, "All work should be done");
+            Assertions.assertEquals(10, totalWork, "Total work should match submitted work");
+            Assertions.assertEquals(1.0, value, "Progress should be complete");
+            Assertions.assertEquals(1, progress.getFailedCount(), "One item should have failed");
+            Assertions.assertEquals(10, progress.getLatencyHistogram().count(), "All latencies should be recorded");
+        }
+    }
+}